@@ -0,0 +1,138 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import dev.alexengrig.tx.isolation.IsolationApplication;
+import dev.alexengrig.tx.isolation.Person;
+import dev.alexengrig.tx.isolation.PersonRepository;
+import dev.alexengrig.tx.isolation.PersonRowMapper;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Text SQL with by-name mapping of {@link JdbcTemplate} against the precompiled queries of the repository
+ * on an embedded PostgreSQL: large scans and the point statements of the isolation tests.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+public class PersonRepositoryBenchmark {
+    @Param("100000")
+    int persons;
+
+    EmbeddedPostgres postgres;
+    ConfigurableApplicationContext context;
+    PersonRepository repository;
+    JdbcTemplate jdbcTemplate;
+    PersonRowMapper rowMapper;
+
+    @Setup(Level.Trial)
+    public void setup() throws IOException {
+        postgres = EmbeddedPostgres.builder().start();
+        context = new SpringApplicationBuilder(IsolationApplication.class)
+                .properties("spring.datasource.url=" + postgres.getJdbcUrl("postgres", "postgres"),
+                        "spring.datasource.username=postgres",
+                        "logging.level.root=warn")
+                .run();
+        repository = context.getBean(PersonRepository.class);
+        jdbcTemplate = context.getBean(JdbcTemplate.class);
+        rowMapper = context.getBean(PersonRowMapper.class);
+        new ResourceDatabasePopulator(new ClassPathResource("db/person/postgresql.sql"))
+                .execute(context.getBean(DataSource.class));
+        jdbcTemplate.update("INSERT INTO person SELECT g, 'Person #' || g FROM generate_series(1, ?) g", persons);
+        jdbcTemplate.execute("ANALYZE person");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        try {
+            context.close();
+        } finally {
+            postgres.close();
+        }
+    }
+
+    @Benchmark
+    public List<Person> selectAllByTemplate() {
+        return jdbcTemplate.query("""
+                SELECT *
+                FROM person
+                """, rowMapper);
+    }
+
+    @Benchmark
+    public List<Person> selectAll() {
+        return repository.selectAll();
+    }
+
+    @Benchmark
+    public long scanAll(Blackhole blackhole) {
+        return repository.scanAll(blackhole::consume);
+    }
+
+    @Benchmark
+    public long scanRows(Blackhole blackhole) {
+        return repository.scanRows((personId, personName) -> {
+            blackhole.consume(personId);
+            blackhole.consume(personName);
+        });
+    }
+
+    @Benchmark
+    public Person selectByIdByTemplate() {
+        return jdbcTemplate.queryForObject("""
+                SELECT *
+                FROM person
+                WHERE id = ?
+                """, rowMapper, randomId());
+    }
+
+    @Benchmark
+    public Person selectById() {
+        return repository.selectById(randomId());
+    }
+
+    @Benchmark
+    public boolean updateNameByIdByTemplate() {
+        return jdbcTemplate.update("""
+                UPDATE person
+                SET name = ?
+                WHERE id = ?
+                """, "Person", randomId()) == 1;
+    }
+
+    @Benchmark
+    public boolean updateNameById() {
+        return repository.updateNameById(randomId(), "Person");
+    }
+
+    int randomId() {
+        return ThreadLocalRandom.current().nextInt(persons) + 1;
+    }
+}
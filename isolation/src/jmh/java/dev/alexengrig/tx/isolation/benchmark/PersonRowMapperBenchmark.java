@@ -0,0 +1,106 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import dev.alexengrig.tx.isolation.Person;
+import dev.alexengrig.tx.isolation.PersonRowMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.jdbc.core.RowMapper;
+
+import javax.sql.rowset.CachedRowSet;
+import javax.sql.rowset.RowSetMetaDataImpl;
+import javax.sql.rowset.RowSetProvider;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mapping of an offline result set, so only the cost of the mapper is measured.
+ */
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+public class PersonRowMapperBenchmark {
+    @Param("10000")
+    int rows;
+
+    PersonRowMapper rowMapper;
+    CachedRowSet rs;
+
+    @Setup
+    public void setup() throws SQLException {
+        rowMapper = new PersonRowMapper();
+        RowSetMetaDataImpl metaData = new RowSetMetaDataImpl();
+        metaData.setColumnCount(2);
+        metaData.setColumnName(1, "id");
+        metaData.setColumnType(1, Types.INTEGER);
+        metaData.setColumnName(2, "name");
+        metaData.setColumnType(2, Types.VARCHAR);
+        rs = RowSetProvider.newFactory().createCachedRowSet();
+        rs.setMetaData(metaData);
+        for (int i = 1; i <= rows; i++) {
+            rs.moveToInsertRow();
+            rs.updateInt(1, i * 1000);
+            rs.updateString(2, "Person #" + i);
+            rs.insertRow();
+        }
+        rs.moveToCurrentRow();
+    }
+
+    @Benchmark
+    public void byColumnName(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        int rowNum = 0;
+        while (rs.next()) {
+            blackhole.consume(rowMapper.mapRow(rs, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public void byColumnIndex(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        RowMapper<Person> indexedRowMapper = rowMapper.newRowMapper();
+        int rowNum = 0;
+        while (rs.next()) {
+            blackhole.consume(indexedRowMapper.mapRow(rs, rowNum++));
+        }
+    }
+
+    @Benchmark
+    public void intoSamePerson(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        Person person = new Person();
+        if (rs.next()) {
+            PersonRowMapper.Columns columns = PersonRowMapper.Columns.of(rs);
+            do {
+                blackhole.consume(columns.mapRow(rs, person));
+            } while (rs.next());
+        }
+    }
+
+    @Benchmark
+    public void primitiveColumns(Blackhole blackhole) throws SQLException {
+        rs.beforeFirst();
+        if (rs.next()) {
+            PersonRowMapper.Columns columns = PersonRowMapper.Columns.of(rs);
+            do {
+                columns.processRow(rs, (personId, personName) -> {
+                    blackhole.consume(personId);
+                    blackhole.consume(personName);
+                });
+            } while (rs.next());
+        }
+    }
+}
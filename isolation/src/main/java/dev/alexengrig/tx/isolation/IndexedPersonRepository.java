@@ -0,0 +1,168 @@
+package dev.alexengrig.tx.isolation;
+
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Answers {@link #selectAllByNameStartsWith(String)} from {@link PersonNameIndex} without a query.
+ * <p>
+ * The index is loaded by the first lookup and then follows {@link #insert(int, String)},
+ * {@link #updateNameById(int, String)} and {@link #deleteById(int)} after commit,
+ * so changes made bypassing this repository aren't seen.
+ * Lookups within a transaction go to the database to see own changes with the isolation level of the transaction.
+ */
+public class IndexedPersonRepository implements PersonRepository {
+    private final PersonRepository delegate;
+    private final PersonNameIndex index;
+    private volatile boolean loaded;
+
+    public IndexedPersonRepository(PersonRepository delegate, PersonNameIndex index) {
+        this.delegate = delegate;
+        this.index = index;
+    }
+
+    @Override
+    public Person insert(int personId, String personName) {
+        Person person = delegate.insert(personId, personName);
+        afterCommit(() -> index.put(person.getId(), person.getName()));
+        return person;
+    }
+
+    @Override
+    public int insertAll(List<Person> persons) {
+        int rows = delegate.insertAll(persons);
+        List<Person> copies = copies(persons);
+        afterCommit(() -> copies.forEach(person -> index.put(person.getId(), person.getName())));
+        return rows;
+    }
+
+    @Override
+    public int upsert(Person person) {
+        int rows = delegate.upsert(person);
+        Person copy = new Person(person.getId(), person.getName());
+        afterCommit(() -> index.put(copy.getId(), copy.getName()));
+        return rows;
+    }
+
+    @Override
+    public UpsertReport upsertAll(List<Person> persons) {
+        UpsertReport report = delegate.upsertAll(persons);
+        List<Person> copies = copies(persons);
+        afterCommit(() -> copies.forEach(person -> index.put(person.getId(), person.getName())));
+        return report;
+    }
+
+    @Override
+    public Person selectById(int personId) {
+        return delegate.selectById(personId);
+    }
+
+    @Override
+    public List<Person> selectAll() {
+        return delegate.selectAll();
+    }
+
+    @Override
+    public Stream<Person> streamAll() {
+        return delegate.streamAll();
+    }
+
+    @Override
+    public long scanAll(Consumer<? super Person> action) {
+        return delegate.scanAll(action);
+    }
+
+    @Override
+    public long scanRows(PersonRowCallback callback) {
+        return delegate.scanRows(callback);
+    }
+
+    @Override
+    public List<Person> selectPage(Integer afterId, int limit) {
+        return delegate.selectPage(afterId, limit);
+    }
+
+    @Override
+    public boolean updateNameById(int personId, String newPersonName) {
+        boolean updated = delegate.updateNameById(personId, newPersonName);
+        if (updated) {
+            afterCommit(() -> index.put(personId, newPersonName));
+        }
+        return updated;
+    }
+
+    @Override
+    public List<Person> selectAllByNameStartsWith(String namePrefix) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return delegate.selectAllByNameStartsWith(namePrefix);
+        }
+        load();
+        return index.findAllByNameStartsWith(namePrefix);
+    }
+
+    @Override
+    public Stream<Person> streamAllByNameStartsWith(String namePrefix) {
+        return delegate.streamAllByNameStartsWith(namePrefix);
+    }
+
+    @Override
+    public long scanAllByNameStartsWith(String namePrefix, Consumer<? super Person> action) {
+        return delegate.scanAllByNameStartsWith(namePrefix, action);
+    }
+
+    @Override
+    public long scanRowsByNameStartsWith(String namePrefix, PersonRowCallback callback) {
+        return delegate.scanRowsByNameStartsWith(namePrefix, callback);
+    }
+
+    @Override
+    public List<Person> selectPageByNameStartsWith(String namePrefix, Integer afterId, int limit) {
+        return delegate.selectPageByNameStartsWith(namePrefix, afterId, limit);
+    }
+
+    @Override
+    public boolean deleteById(int personId) {
+        boolean deleted = delegate.deleteById(personId);
+        if (deleted) {
+            afterCommit(() -> index.remove(personId));
+        }
+        return deleted;
+    }
+
+    private static List<Person> copies(List<Person> persons) {
+        return persons.stream().map(person -> new Person(person.getId(), person.getName()))
+                .collect(Collectors.toList());
+    }
+
+    private void load() {
+        if (loaded) {
+            return;
+        }
+        // Changes wait for loading, so a change committed while scanning is applied after it
+        synchronized (index) {
+            if (!loaded) {
+                index.clear();
+                delegate.scanRows(index::put);
+                loaded = true;
+            }
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            change.run();
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCommit() {
+                change.run();
+            }
+        });
+    }
+}
@@ -1,70 +1,418 @@
 package dev.alexengrig.tx.isolation;
 
-import lombok.RequiredArgsConstructor;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.dao.support.DataAccessUtils;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
-import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.object.SqlUpdate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Propagation;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
+/**
+ * Statements are precompiled query objects, see {@link PersonQuery}.
+ * <p>
+ * Streaming reads use a forward-only cursor with the {@code person.fetch-size} fetch size,
+ * so memory doesn't depend on the number of rows.
+ * PostgreSQL keeps the cursor on the server only within a transaction,
+ * and MySQL streams rows one by one, so the connection can't run other statements until the cursor is closed.
+ * <p>
+ * Prefix searches need a prefix-capable index on {@code name}, see {@code db/person/*.sql}.
+ */
 @Repository
-@RequiredArgsConstructor
 @SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
 public class JdbcPersonRepository implements PersonRepository {
+    // PostgreSQL allows at most 65535 parameters per statement, every row has two
+    private static final int MAX_INSERT_CHUNK_SIZE = 65535 / 2;
+
     private final JdbcTemplate jdbcTemplate;
-    private final RowMapper<Person> rowMapper;
+    private final PersonRowMapper rowMapper;
+    private final int fetchSize;
+    private final int insertChunkSize;
+    private final SqlUpdate insertUpdate;
+    private final PersonQuery selectByIdQuery;
+    private final PersonQuery selectAllQuery;
+    private final SqlUpdate updateNameByIdUpdate;
+    private final PersonQuery selectAllByNameStartsWithQuery;
+    private final SqlUpdate deleteByIdUpdate;
+    private final Map<String, PersonQuery> pageQueries = new ConcurrentHashMap<>();
+    private volatile SqlDialect dialect;
 
-    @Override
-    public Person insert(int personId, String personName) {
-        int rows = jdbcTemplate.update("""
+    public JdbcPersonRepository(JdbcTemplate jdbcTemplate, PersonRowMapper rowMapper,
+                                @Value("${person.fetch-size:1000}") int fetchSize,
+                                @Value("${person.insert-chunk-size:500}") int insertChunkSize) {
+        if (fetchSize < 1) {
+            throw new IllegalArgumentException("Fetch size must be positive: " + fetchSize);
+        }
+        if (insertChunkSize < 1 || insertChunkSize > MAX_INSERT_CHUNK_SIZE) {
+            throw new IllegalArgumentException("Insert chunk size must be between 1 and " + MAX_INSERT_CHUNK_SIZE +
+                    ": " + insertChunkSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.rowMapper = rowMapper;
+        this.fetchSize = fetchSize;
+        this.insertChunkSize = insertChunkSize;
+        // PostgreSQL appends RETURNING, Oracle uses RETURNING INTO, MySQL returns only auto-increment keys
+        this.insertUpdate = update("""
                 INSERT INTO person (id, name)
                 VALUES (?, ?)
-                """, personId, personName);
+                """, new String[]{"id", "name"}, Types.INTEGER, Types.VARCHAR);
+        this.selectByIdQuery = query("""
+                SELECT id, name
+                FROM person
+                WHERE id = ?
+                """, Types.INTEGER);
+        this.selectAllQuery = query("""
+                SELECT id, name
+                FROM person
+                """);
+        this.updateNameByIdUpdate = update("""
+                UPDATE person
+                SET name = ?
+                WHERE id = ?
+                """, Types.VARCHAR, Types.INTEGER);
+        this.selectAllByNameStartsWithQuery = query("""
+                SELECT id, name
+                FROM person
+                WHERE name LIKE ? ESCAPE '!'
+                """, Types.VARCHAR);
+        this.deleteByIdUpdate = update("""
+                DELETE FROM person WHERE id = ?
+                """, Types.INTEGER);
+    }
+
+    @Override
+    public Person insert(int personId, String personName) {
+        KeyHolder keyHolder = new GeneratedKeyHolder();
+        int rows = insertUpdate.update(new Object[]{personId, personName}, keyHolder);
         assert rows == 1 : "Invalid result of insert: " + rows;
-        return selectById(personId);
+        Map<String, Object> keys = keyHolder.getKeys();
+        if (keys == null || keys.isEmpty()) {
+            // Nothing is generated, so the row is what was inserted
+            return new Person(personId, personName);
+        }
+        return new Person(((Number) keys.get("id")).intValue(), (String) keys.get("name"));
+    }
+
+    /**
+     * Full chunks of {@code person.insert-chunk-size} rows are one JDBC batch of one multi-row statement,
+     * the rest is one more statement. Oracle gets one row per statement in the batch.
+     */
+    @Override
+    @Transactional
+    public int insertAll(List<Person> persons) {
+        for (Person person : persons) {
+            Objects.requireNonNull(person.getId(), "Person id must not be null");
+        }
+        int rowsPerStatement = dialect().supportsMultiRowValues() ? insertChunkSize : 1;
+        int rows = 0;
+        for (int count : updateInChunks(persons, rowsPerStatement, JdbcPersonRepository::insertValuesSql)) {
+            rows += count == Statement.SUCCESS_NO_INFO ? rowsPerStatement : count;
+        }
+        return rows;
+    }
+
+    @Override
+    public int upsert(Person person) {
+        Objects.requireNonNull(person.getId(), "Person id must not be null");
+        SqlDialect dialect = dialect();
+        return upsertRetryingRacingInsert(dialect,
+                () -> jdbcTemplate.update(upsertSql(dialect, 1), ps -> setPersons(ps, List.of(person))));
+    }
+
+    /**
+     * Chunks of {@code person.insert-chunk-size} persons like {@link #insertAll(List)},
+     * a person repeated in the list is upserted once with the last name.
+     */
+    @Override
+    @Transactional
+    public UpsertReport upsertAll(List<Person> persons) {
+        Map<Integer, Person> personById = new LinkedHashMap<>();
+        for (Person person : persons) {
+            personById.put(Objects.requireNonNull(person.getId(), "Person id must not be null"), person);
+        }
+        SqlDialect dialect = dialect();
+        List<Person> distinctPersons = new ArrayList<>(personById.values());
+        int[] counts = upsertRetryingRacingInsert(dialect,
+                () -> updateInChunks(distinctPersons, insertChunkSize, rows -> upsertSql(dialect, rows)));
+        return new UpsertReport(personById.size(), Arrays.stream(counts).boxed().collect(Collectors.toList()));
     }
 
     @Override
     public Person selectById(int personId) {
-        return jdbcTemplate.queryForObject("""
-                SELECT *
-                FROM person
-                WHERE id = ?
-                """, rowMapper, personId);
+        return DataAccessUtils.requiredSingleResult(selectByIdQuery.execute(personId));
     }
 
     @Override
     public List<Person> selectAll() {
-        return jdbcTemplate.query("""
-                SELECT *
-                FROM person
-                """, rowMapper);
+        return selectAllQuery.execute();
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public Stream<Person> streamAll() {
+        return stream(cursor(selectAllQuery));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long scanAll(Consumer<? super Person> action) {
+        return scan(cursor(selectAllQuery), action);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long scanRows(PersonRowCallback callback) {
+        return scanRows(cursor(selectAllQuery), callback);
+    }
+
+    @Override
+    public List<Person> selectPage(Integer afterId, int limit) {
+        return selectPage(null, afterId, limit);
     }
 
     @Override
     public boolean updateNameById(int personId, String newPersonName) {
-        int rows = jdbcTemplate.update("""
-                UPDATE person
-                SET name = ?
-                WHERE id = ?
-                """, newPersonName, personId);
+        int rows = updateNameByIdUpdate.update(newPersonName, personId);
         return rows == 1;
     }
 
     @Override
     public List<Person> selectAllByNameStartsWith(String namePrefix) {
-        return jdbcTemplate.query("""
-                SELECT *
-                FROM person
-                WHERE name LIKE CONCAT(?, '%')
-                """, rowMapper, namePrefix);
+        return selectAllByNameStartsWithQuery.execute(likePrefix(namePrefix));
+    }
+
+    @Override
+    @Transactional(propagation = Propagation.MANDATORY, readOnly = true)
+    public Stream<Person> streamAllByNameStartsWith(String namePrefix) {
+        return stream(cursor(selectAllByNameStartsWithQuery, likePrefix(namePrefix)));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long scanAllByNameStartsWith(String namePrefix, Consumer<? super Person> action) {
+        return scan(cursor(selectAllByNameStartsWithQuery, likePrefix(namePrefix)), action);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public long scanRowsByNameStartsWith(String namePrefix, PersonRowCallback callback) {
+        return scanRows(cursor(selectAllByNameStartsWithQuery, likePrefix(namePrefix)), callback);
+    }
+
+    @Override
+    public List<Person> selectPageByNameStartsWith(String namePrefix, Integer afterId, int limit) {
+        return selectPage(namePrefix, afterId, limit);
     }
 
     @Override
     public boolean deleteById(int personId) {
-        int rows = jdbcTemplate.update("""
-                DELETE FROM person WHERE id = ?
-                """, personId);
+        int rows = deleteByIdUpdate.update(personId);
         return rows == 1;
     }
+
+    private PersonQuery query(String sql, int... types) {
+        return new PersonQuery(jdbcTemplate, rowMapper, sql, types);
+    }
+
+    private SqlUpdate update(String sql, int... types) {
+        return update(sql, null, types);
+    }
+
+    private SqlUpdate update(String sql, String[] generatedKeysColumnNames, int... types) {
+        SqlUpdate update = new SqlUpdate();
+        update.setJdbcTemplate(jdbcTemplate);
+        update.setSql(sql);
+        update.setTypes(types);
+        if (generatedKeysColumnNames != null) {
+            update.setGeneratedKeysColumnNames(generatedKeysColumnNames);
+        }
+        update.compile();
+        return update;
+    }
+
+    /**
+     * @return affected rows by every statement: full chunks in one batch and then the rest
+     */
+    private int[] updateInChunks(List<Person> persons, int rowsPerStatement, IntFunction<String> sqlByRows) {
+        int fullChunks = persons.size() / rowsPerStatement;
+        int[] counts = new int[0];
+        if (fullChunks > 0) {
+            counts = jdbcTemplate.batchUpdate(sqlByRows.apply(rowsPerStatement), new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    setPersons(ps, persons.subList(i * rowsPerStatement, (i + 1) * rowsPerStatement));
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return fullChunks;
+                }
+            });
+        }
+        List<Person> rest = persons.subList(fullChunks * rowsPerStatement, persons.size());
+        if (!rest.isEmpty()) {
+            counts = Arrays.copyOf(counts, counts.length + 1);
+            counts[counts.length - 1] = jdbcTemplate.update(sqlByRows.apply(rest.size()), ps -> setPersons(ps, rest));
+        }
+        return counts;
+    }
+
+    private static String insertValuesSql(int rows) {
+        return "INSERT INTO person (id, name) VALUES " + String.join(", ", Collections.nCopies(rows, "(?, ?)"));
+    }
+
+    /**
+     * {@code MERGE} of Oracle isn't atomic: an insert of the same id racing it fails it with ORA-00001.
+     * Upserts are idempotent and a failed statement of Oracle is rolled back alone,
+     * so the upsert is run once more and then updates the inserted row.
+     */
+    private static <T> T upsertRetryingRacingInsert(SqlDialect dialect, Supplier<T> upsert) {
+        try {
+            return upsert.get();
+        } catch (DuplicateKeyException e) {
+            if (dialect != SqlDialect.ORACLE) {
+                throw e;
+            }
+            return upsert.get();
+        }
+    }
+
+    private static String upsertSql(SqlDialect dialect, int rows) {
+        switch (dialect) {
+            case POSTGRESQL:
+                return insertValuesSql(rows) + " ON CONFLICT (id) DO UPDATE SET name = EXCLUDED.name";
+            case MYSQL:
+                return insertValuesSql(rows) + " AS new ON DUPLICATE KEY UPDATE name = new.name";
+            case ORACLE:
+                return "MERGE INTO person p USING (" +
+                        String.join(" UNION ALL ", Collections.nCopies(rows, "SELECT ? AS id, ? AS name FROM dual")) +
+                        ") s ON (p.id = s.id) " +
+                        "WHEN MATCHED THEN UPDATE SET p.name = s.name " +
+                        "WHEN NOT MATCHED THEN INSERT (id, name) VALUES (s.id, s.name)";
+            default:
+                throw new UnsupportedOperationException("No upsert for dialect: " + dialect);
+        }
+    }
+
+    private static void setPersons(PreparedStatement ps, List<Person> persons) throws SQLException {
+        int index = 1;
+        for (Person person : persons) {
+            ps.setInt(index++, person.getId());
+            ps.setString(index++, person.getName());
+        }
+    }
+
+    private List<Person> selectPage(String namePrefix, Integer afterId, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        List<String> conditions = new ArrayList<>(2);
+        List<Object> args = new ArrayList<>(3);
+        List<Integer> types = new ArrayList<>(3);
+        if (namePrefix != null) {
+            conditions.add("name LIKE ? ESCAPE '!'");
+            args.add(likePrefix(namePrefix));
+            types.add(Types.VARCHAR);
+        }
+        if (afterId != null) {
+            conditions.add("id > ?");
+            args.add(afterId);
+            types.add(Types.INTEGER);
+        }
+        args.add(limit);
+        types.add(Types.INTEGER);
+        String sql = "SELECT id, name FROM person" +
+                (conditions.isEmpty() ? "" : " WHERE " + String.join(" AND ", conditions)) +
+                " ORDER BY id " + dialect().limitClause();
+        // At most four variants, every one is compiled once
+        PersonQuery pageQuery = pageQueries.computeIfAbsent(sql,
+                key -> query(key, types.stream().mapToInt(Integer::intValue).toArray()));
+        return pageQuery.execute(args.toArray());
+    }
+
+    /**
+     * Pattern bound as a whole value, unlike {@code CONCAT(?, '%')} it lets the planner use a prefix index.
+     */
+    private static String likePrefix(String namePrefix) {
+        return namePrefix.replace("!", "!!").replace("%", "!%").replace("_", "!_") + "%";
+    }
+
+    private SqlDialect dialect() {
+        SqlDialect result = dialect;
+        if (result == null) {
+            result = jdbcTemplate.execute((ConnectionCallback<SqlDialect>) SqlDialect::of);
+            dialect = result;
+        }
+        return result;
+    }
+
+    private PreparedStatementCreator cursor(PersonQuery query, Object... args) {
+        return query.cursor(dialect().streamingFetchSize(fetchSize), args);
+    }
+
+    private Stream<Person> stream(PreparedStatementCreator cursor) {
+        Stream<Person> stream = jdbcTemplate.queryForStream(cursor, rowMapper.newRowMapper());
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                stream.close();
+            }
+        });
+        return stream;
+    }
+
+    private long scan(PreparedStatementCreator cursor, Consumer<? super Person> action) {
+        Person person = new Person();
+        return jdbcTemplate.query(cursor, rs -> {
+            long count = 0;
+            if (rs.next()) {
+                PersonRowMapper.Columns columns = PersonRowMapper.Columns.of(rs);
+                do {
+                    action.accept(columns.mapRow(rs, person));
+                    count++;
+                } while (rs.next());
+            }
+            return count;
+        });
+    }
+
+    private long scanRows(PreparedStatementCreator cursor, PersonRowCallback callback) {
+        return jdbcTemplate.query(cursor, rs -> {
+            long count = 0;
+            if (rs.next()) {
+                PersonRowMapper.Columns columns = PersonRowMapper.Columns.of(rs);
+                do {
+                    columns.processRow(rs, callback);
+                    count++;
+                } while (rs.next());
+            }
+            return count;
+        });
+    }
 }
@@ -0,0 +1,87 @@
+package dev.alexengrig.tx.isolation;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+/**
+ * Loads persons in one transaction: by one {@code COPY ... FROM STDIN} in CSV on PostgreSQL
+ * and by {@link PersonRepository#insertAll(List)} of {@code person.bulk-load.chunk-size} persons elsewhere.
+ * <p>
+ * The source is read only as fast as rows are sent, so memory is bounded
+ * by {@code person.bulk-load.buffer-size} on PostgreSQL and by the chunk size elsewhere.
+ * {@code COPY} bypasses the repository, so {@link IndexedPersonRepository} doesn't see copied persons.
+ */
+@Slf4j
+@Component
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+public class PersonBulkLoader {
+    private final JdbcTemplate jdbcTemplate;
+    private final PersonRepository repository;
+    private final int chunkSize;
+    private final int bufferSize;
+
+    public PersonBulkLoader(JdbcTemplate jdbcTemplate, PersonRepository repository,
+                            @Value("${person.bulk-load.chunk-size:10000}") int chunkSize,
+                            @Value("${person.bulk-load.buffer-size:64KB}") DataSize bufferSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+        }
+        this.jdbcTemplate = jdbcTemplate;
+        this.repository = repository;
+        this.chunkSize = chunkSize;
+        this.bufferSize = Math.toIntExact(bufferSize.toBytes());
+    }
+
+    @Transactional
+    public BulkLoadReport load(Stream<Person> persons) {
+        long start = System.nanoTime();
+        SqlDialect dialect = jdbcTemplate.execute((ConnectionCallback<SqlDialect>) SqlDialect::of);
+        Iterator<Person> iterator = persons.iterator();
+        long rows = dialect == SqlDialect.POSTGRESQL ? copy(iterator) : insert(iterator);
+        BulkLoadReport report = new BulkLoadReport(rows, Duration.ofNanos(System.nanoTime() - start));
+        log.debug("Loaded {} persons in {} ({} rows/s)", report.getRows(), report.getElapsed(),
+                Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private long copy(Iterator<Person> persons) {
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> PostgresCopy.copyIn(connection,
+                "COPY person (id, name) FROM STDIN WITH (FORMAT csv)", bufferSize, writer -> {
+                    while (persons.hasNext()) {
+                        Person person = persons.next();
+                        Objects.requireNonNull(person.getId(), "Person id must not be null");
+                        Objects.requireNonNull(person.getName(), "Person name must not be null");
+                        writer.write(Integer.toString(person.getId()));
+                        writer.write(',');
+                        PostgresCopy.writeCsvValue(writer, person.getName());
+                        writer.write('\n');
+                    }
+                }));
+        return Objects.requireNonNull(rows, "Number of copied rows");
+    }
+
+    private long insert(Iterator<Person> persons) {
+        long rows = 0;
+        List<Person> chunk = new ArrayList<>(chunkSize);
+        while (persons.hasNext()) {
+            chunk.add(persons.next());
+            if (chunk.size() == chunkSize || !persons.hasNext()) {
+                rows += repository.insertAll(chunk);
+                chunk.clear();
+            }
+        }
+        return rows;
+    }
+}
@@ -0,0 +1,64 @@
+package dev.alexengrig.tx.isolation;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Persons sorted by name and id, so persons with the same name prefix are one range.
+ * <p>
+ * Lookups are lock-free, changes are serialized. Names are compared by characters,
+ * so the index matches case-sensitively like {@code LIKE} on PostgreSQL and Oracle.
+ * MySQL matches the same only with a binary collation, as in {@code db/person/mysql.sql}:
+ * with the default {@code utf8mb4_0900_ai_ci} its {@code LIKE 'ja%'} finds "Jack" and this index doesn't.
+ */
+public class PersonNameIndex {
+    private static final Comparator<Person> NAME_ORDER = Comparator.comparing(Person::getName)
+            .thenComparing(Person::getId);
+
+    private final NavigableSet<Person> persons = new ConcurrentSkipListSet<>(NAME_ORDER);
+    private final Map<Integer, Person> personById = new ConcurrentHashMap<>();
+
+    public synchronized void put(int personId, String personName) {
+        Person person = new Person(personId, personName);
+        Person oldPerson = personById.put(personId, person);
+        if (oldPerson != null) {
+            persons.remove(oldPerson);
+        }
+        persons.add(person);
+    }
+
+    public synchronized void remove(int personId) {
+        Person oldPerson = personById.remove(personId);
+        if (oldPerson != null) {
+            persons.remove(oldPerson);
+        }
+    }
+
+    public synchronized void clear() {
+        personById.clear();
+        persons.clear();
+    }
+
+    public int size() {
+        return personById.size();
+    }
+
+    /**
+     * @return copies of persons in name order
+     */
+    public List<Person> findAllByNameStartsWith(String namePrefix) {
+        List<Person> result = new ArrayList<>();
+        for (Person person : persons.tailSet(new Person(Integer.MIN_VALUE, namePrefix), true)) {
+            if (!person.getName().startsWith(namePrefix)) {
+                break;
+            }
+            result.add(new Person(person.getId(), person.getName()));
+        }
+        return result;
+    }
+}
@@ -0,0 +1,43 @@
+package dev.alexengrig.tx.isolation;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCreator;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.object.SqlQuery;
+
+import java.sql.PreparedStatement;
+import java.util.Map;
+
+/**
+ * Precompiled query of persons: SQL and parameter types are declared once,
+ * and rows are mapped by column indexes resolved once per result set.
+ */
+class PersonQuery extends SqlQuery<Person> {
+    private final PersonRowMapper rowMapper;
+
+    PersonQuery(JdbcTemplate jdbcTemplate, PersonRowMapper rowMapper, String sql, int... types) {
+        this.rowMapper = rowMapper;
+        setJdbcTemplate(jdbcTemplate);
+        setSql(sql);
+        setTypes(types);
+        compile();
+    }
+
+    @Override
+    protected RowMapper<Person> newRowMapper(Object[] parameters, Map<?, ?> context) {
+        return rowMapper.newRowMapper();
+    }
+
+    /**
+     * Statement of a forward-only read-only cursor with the given fetch size.
+     */
+    PreparedStatementCreator cursor(int fetchSize, Object... params) {
+        validateParameters(params);
+        PreparedStatementCreator creator = newPreparedStatementCreator(params);
+        return connection -> {
+            PreparedStatement statement = creator.createPreparedStatement(connection);
+            statement.setFetchSize(fetchSize);
+            return statement;
+        };
+    }
+}
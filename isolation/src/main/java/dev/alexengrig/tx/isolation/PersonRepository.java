@@ -1,17 +1,75 @@
 package dev.alexengrig.tx.isolation;
 
 import java.util.List;
+import java.util.function.Consumer;
+import java.util.stream.Stream;
 
 public interface PersonRepository {
+    /**
+     * Inserts and returns the inserted person in one round trip.
+     */
     Person insert(int personId, String personName);
 
+    /**
+     * Inserts persons by multi-row statements in one transaction.
+     *
+     * @return number of inserted persons
+     */
+    int insertAll(List<Person> persons);
+
+    /**
+     * Inserts the person or updates the name of the existing one by one statement.
+     * On Oracle the statement is run once more if a racing insert of the same id fails it.
+     *
+     * @return affected rows as the database reports them, on MySQL 2 for an updated row
+     */
+    int upsert(Person person);
+
+    UpsertReport upsertAll(List<Person> persons);
+
     Person selectById(int personId);
 
     List<Person> selectAll();
 
+    /**
+     * Streams all persons from a server-side cursor; requires a transaction and is closed with it.
+     */
+    Stream<Person> streamAll();
+
+    /**
+     * Passes all persons to the action one by one through the same mutable instance,
+     * so the action must copy a person to keep it.
+     *
+     * @return number of persons
+     */
+    long scanAll(Consumer<? super Person> action);
+
+    /**
+     * Passes all persons to the callback column by column, without creating persons.
+     *
+     * @return number of persons
+     */
+    long scanRows(PersonRowCallback callback);
+
+    /**
+     * Keyset page: persons with ids greater than the given id in id order,
+     * so the cost of a page doesn't depend on its depth.
+     *
+     * @param afterId last id of the previous page, {@code null} for the first page
+     */
+    List<Person> selectPage(Integer afterId, int limit);
+
     boolean updateNameById(int personId, String newPersonName);
 
     List<Person> selectAllByNameStartsWith(String namePrefix);
 
+    Stream<Person> streamAllByNameStartsWith(String namePrefix);
+
+    long scanAllByNameStartsWith(String namePrefix, Consumer<? super Person> action);
+
+    long scanRowsByNameStartsWith(String namePrefix, PersonRowCallback callback);
+
+    List<Person> selectPageByNameStartsWith(String namePrefix, Integer afterId, int limit);
+
     boolean deleteById(int personId);
 }
@@ -0,0 +1,16 @@
+package dev.alexengrig.tx.isolation;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+@Configuration
+public class PersonRepositoryConfiguration {
+    @Bean
+    @Primary
+    @ConditionalOnProperty("person.name-index.enabled")
+    public IndexedPersonRepository indexedPersonRepository(JdbcPersonRepository jdbcPersonRepository) {
+        return new IndexedPersonRepository(jdbcPersonRepository, new PersonNameIndex());
+    }
+}
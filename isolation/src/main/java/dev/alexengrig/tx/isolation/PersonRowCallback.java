@@ -0,0 +1,9 @@
+package dev.alexengrig.tx.isolation;
+
+/**
+ * Receives columns of a person row without creating a person.
+ */
+@FunctionalInterface
+public interface PersonRowCallback {
+    void processRow(int personId, String personName);
+}
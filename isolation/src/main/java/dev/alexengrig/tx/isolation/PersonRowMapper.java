@@ -20,4 +20,55 @@ public class PersonRowMapper implements RowMapper<Person> {
         }
         return new Person(id, name);
     }
+
+    /**
+     * Mapper for one result set, resolves column indexes by the first row instead of names by every row.
+     */
+    public RowMapper<Person> newRowMapper() {
+        return new RowMapper<>() {
+            Columns columns;
+
+            @Override
+            public Person mapRow(ResultSet rs, int rowNum) throws SQLException {
+                if (columns == null) {
+                    columns = Columns.of(rs);
+                }
+                return columns.mapRow(rs, new Person());
+            }
+        };
+    }
+
+    /**
+     * Indexes of person columns in one result set.
+     */
+    public static final class Columns {
+        private final int idIndex;
+        private final int nameIndex;
+
+        private Columns(int idIndex, int nameIndex) {
+            this.idIndex = idIndex;
+            this.nameIndex = nameIndex;
+        }
+
+        public static Columns of(ResultSet rs) throws SQLException {
+            return new Columns(rs.findColumn("id"), rs.findColumn("name"));
+        }
+
+        /**
+         * Maps the current row into the given person, so one instance can be reused for all rows.
+         */
+        public Person mapRow(ResultSet rs, Person person) throws SQLException {
+            int id = rs.getInt(idIndex);
+            person.setId(rs.wasNull() ? null : id);
+            person.setName(rs.getString(nameIndex));
+            return person;
+        }
+
+        /**
+         * Passes the current row without boxing the id, the id column is a primary key so it's never null.
+         */
+        public void processRow(ResultSet rs, PersonRowCallback callback) throws SQLException {
+            callback.processRow(rs.getInt(idIndex), rs.getString(nameIndex));
+        }
+    }
 }
@@ -0,0 +1,56 @@
+package dev.alexengrig.tx.isolation;
+
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * {@code COPY ... FROM STDIN} through the PostgreSQL driver, which is needed only when this class is used.
+ * <p>
+ * Data is sent whenever the buffer is full and sending blocks while the server is behind,
+ * so the writer is throttled by the server.
+ */
+final class PostgresCopy {
+    private PostgresCopy() {
+    }
+
+    /**
+     * @return number of copied rows
+     */
+    static long copyIn(Connection connection, String sql, int bufferSize, CopyWriter copyWriter) throws SQLException {
+        PGCopyOutputStream out = new PGCopyOutputStream(connection.unwrap(PGConnection.class), sql, bufferSize);
+        try {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            copyWriter.write(writer);
+            writer.flush();
+            return out.endCopy();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            if (out.isActive()) {
+                out.cancelCopy();
+            }
+        }
+    }
+
+    /**
+     * Quoted, so an empty value isn't read as {@code NULL}.
+     */
+    static void writeCsvValue(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+
+    @FunctionalInterface
+    interface CopyWriter {
+        void write(Writer writer) throws IOException;
+    }
+}
@@ -0,0 +1,50 @@
+package dev.alexengrig.tx.isolation;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.Locale;
+
+public enum SqlDialect {
+    POSTGRESQL,
+    MYSQL,
+    ORACLE,
+    OTHER;
+
+    public static SqlDialect of(Connection connection) throws SQLException {
+        return of(connection.getMetaData().getDatabaseProductName());
+    }
+
+    public static SqlDialect of(String databaseProductName) {
+        String name = databaseProductName.toLowerCase(Locale.ROOT);
+        if (name.contains("postgresql")) {
+            return POSTGRESQL;
+        } else if (name.contains("mysql")) {
+            return MYSQL;
+        } else if (name.contains("oracle")) {
+            return ORACLE;
+        }
+        return OTHER;
+    }
+
+    /**
+     * Clause limiting the number of rows by a parameter, goes after {@code ORDER BY}.
+     */
+    public String limitClause() {
+        return this == ORACLE ? "FETCH FIRST ? ROWS ONLY" : "LIMIT ?";
+    }
+
+    /**
+     * Oracle before 23c has no multi-row {@code VALUES}.
+     */
+    public boolean supportsMultiRowValues() {
+        return this != ORACLE;
+    }
+
+    /**
+     * MySQL Connector/J ignores a positive fetch size without {@code useCursorFetch=true}
+     * and streams rows one by one only with {@link Integer#MIN_VALUE}.
+     */
+    public int streamingFetchSize(int fetchSize) {
+        return this == MYSQL ? Integer.MIN_VALUE : fetchSize;
+    }
+}
@@ -0,0 +1,23 @@
+package dev.alexengrig.tx.isolation;
+
+import lombok.Value;
+
+import java.sql.Statement;
+import java.util.List;
+
+@Value
+public class UpsertReport {
+    /**
+     * Number of distinct persons.
+     */
+    int persons;
+    /**
+     * Affected rows by every statement as the database reports them,
+     * on MySQL an updated row is 2 and a batch may report {@link Statement#SUCCESS_NO_INFO}.
+     */
+    List<Integer> affectedRows;
+
+    public long getTotalAffectedRows() {
+        return affectedRows.stream().mapToLong(rows -> Math.max(rows, 0)).sum();
+    }
+}
@@ -0,0 +1,8 @@
+-- utf8mb4_bin compares by code points, so LIKE is case-sensitive as on PostgreSQL and Oracle.
+-- TEXT can be indexed only by a column prefix, LIKE 'prefix%' is a range scan over it
+CREATE TABLE IF NOT EXISTS person
+(
+    id   INT PRIMARY KEY,
+    name TEXT CHARACTER SET utf8mb4 COLLATE utf8mb4_bin NOT NULL,
+    INDEX person_name_idx (name(255))
+);
@@ -0,0 +1,23 @@
+-- Oracle has no IF NOT EXISTS before 23c, so existing objects (ORA-00955) are skipped.
+-- PL/SQL blocks contain semicolons, so statements are separated by "/" like in SQL*Plus:
+-- run with spring.sql.init.separator=/ or ResourceDatabasePopulator#setSeparator("/").
+DECLARE
+    name_used EXCEPTION;
+    PRAGMA EXCEPTION_INIT (name_used, -955);
+BEGIN
+    EXECUTE IMMEDIATE 'CREATE TABLE person (id NUMBER(10) PRIMARY KEY, name VARCHAR2(4000) NOT NULL)';
+EXCEPTION
+    WHEN name_used THEN NULL;
+END;
+/
+
+-- LIKE 'prefix%' is an index range scan with the default binary NLS_SORT
+DECLARE
+    name_used EXCEPTION;
+    PRAGMA EXCEPTION_INIT (name_used, -955);
+BEGIN
+    EXECUTE IMMEDIATE 'CREATE INDEX person_name_idx ON person (name)';
+EXCEPTION
+    WHEN name_used THEN NULL;
+END;
+/
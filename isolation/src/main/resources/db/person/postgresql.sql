@@ -0,0 +1,8 @@
+CREATE TABLE IF NOT EXISTS person
+(
+    id   INT PRIMARY KEY,
+    name TEXT NOT NULL
+);
+
+-- text_pattern_ops compares by characters, so LIKE 'prefix%' is an index range scan whatever the collation
+CREATE INDEX IF NOT EXISTS person_name_pattern_idx ON person (name text_pattern_ops);
@@ -0,0 +1,94 @@
+package dev.alexengrig.tx.isolation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static dev.alexengrig.tx.isolation.PersonNameIndexTest.ids;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "person.name-index.enabled=true")
+@Testcontainers
+@Sql(statements = "DROP TABLE IF EXISTS person")
+@Sql("classpath:db/person/mysql.sql")
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection", "SpringJavaInjectionPointsAutowiringInspection"})
+class IndexedPersonRepositoryTest extends DbContainerTest {
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate txTemplate;
+
+    @AfterEach
+    void afterEach() {
+        personRepository.selectAll().forEach(person -> personRepository.deleteById(person.getId()));
+    }
+
+    @Test
+    void should_load() {
+        assertInstanceOf(IndexedPersonRepository.class, personRepository, "PersonRepository");
+    }
+
+    @Test
+    void should_follow_changes() {
+        personRepository.insert(1, "Jack");
+        personRepository.insert(2, "Jacob");
+        personRepository.insert(3, "John");
+        assertEquals(List.of(1, 2), ids(personRepository.selectAllByNameStartsWith("Ja")), "Ids of 'Ja' persons");
+
+        personRepository.updateNameById(1, "Tom");
+        personRepository.deleteById(2);
+        assertTrue(personRepository.selectAllByNameStartsWith("Ja").isEmpty(), "No 'Ja' persons");
+        assertEquals(List.of(1), ids(personRepository.selectAllByNameStartsWith("To")), "Ids of 'To' persons");
+    }
+
+    @Test
+    void should_follow_insertAll() {
+        personRepository.selectAllByNameStartsWith("Ja");
+        personRepository.insertAll(List.of(new Person(1, "Jack"), new Person(2, "Jacob")));
+        assertEquals(List.of(1, 2), ids(personRepository.selectAllByNameStartsWith("Ja")), "Ids of 'Ja' persons");
+    }
+
+    @Test
+    void should_follow_upsertAll() {
+        personRepository.insert(1, "Tom");
+        personRepository.selectAllByNameStartsWith("Ja");
+        personRepository.upsertAll(List.of(new Person(1, "Jack"), new Person(2, "Jacob")));
+        assertEquals(List.of(1, 2), ids(personRepository.selectAllByNameStartsWith("Ja")), "Ids of 'Ja' persons");
+        assertTrue(personRepository.selectAllByNameStartsWith("To").isEmpty(), "No 'To' persons");
+    }
+
+    @Test
+    void should_answer_withoutQuery() {
+        personRepository.insert(1, "Jack");
+        assertEquals(1, personRepository.selectAllByNameStartsWith("Ja").size(), "Number of 'Ja' persons");
+        // Bypasses the repository, so the index doesn't know about it
+        jdbcTemplate.update("UPDATE person SET name = 'Tom' WHERE id = 1");
+        assertEquals(1, personRepository.selectAllByNameStartsWith("Ja").size(), "Number of 'Ja' persons");
+        jdbcTemplate.update("UPDATE person SET name = 'Jack' WHERE id = 1");
+    }
+
+    @Test
+    void shouldNot_follow_rolledBackChanges() {
+        personRepository.insert(1, "Jack");
+        personRepository.selectAllByNameStartsWith("Ja");
+        txTemplate.executeWithoutResult(status -> {
+            personRepository.insert(2, "Jacob");
+            personRepository.updateNameById(1, "Tom");
+            assertEquals(List.of(2), ids(personRepository.selectAllByNameStartsWith("Ja")),
+                    "Ids of 'Ja' persons within transaction");
+            status.setRollbackOnly();
+        });
+        assertEquals(List.of(1), ids(personRepository.selectAllByNameStartsWith("Ja")), "Ids of 'Ja' persons");
+    }
+}
@@ -0,0 +1,204 @@
+package dev.alexengrig.tx.isolation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.IllegalTransactionStateException;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"person.fetch-size=16", "person.insert-chunk-size=16"})
+@Testcontainers
+@Sql(statements = "DROP TABLE IF EXISTS person")
+@Sql("classpath:db/person/mysql.sql")
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection", "SpringJavaInjectionPointsAutowiringInspection"})
+class JdbcPersonRepositoryTest extends DbContainerTest {
+    static final int NUMBER_OF_PERSONS = 100;
+
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate txTemplate;
+
+    @BeforeEach
+    void beforeEach() {
+        List<Object[]> persons = IntStream.rangeClosed(1, NUMBER_OF_PERSONS)
+                .mapToObj(id -> new Object[]{id, (id % 2 == 0 ? "Even #" : "Odd #") + id})
+                .collect(Collectors.toList());
+        jdbcTemplate.batchUpdate("INSERT INTO person (id, name) VALUES (?, ?)", persons);
+    }
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("TRUNCATE TABLE person");
+    }
+
+    @Test
+    void should_streamAll() {
+        Set<Integer> ids = txTemplate.execute(status -> {
+            try (Stream<Person> persons = personRepository.streamAll()) {
+                return persons.map(Person::getId).collect(Collectors.toSet());
+            }
+        });
+        assertEquals(NUMBER_OF_PERSONS, ids.size(), "Number of persons");
+    }
+
+    @Test
+    void should_streamAll_byNameStartsWith() {
+        List<Person> persons = txTemplate.execute(status ->
+                personRepository.streamAllByNameStartsWith("Even").collect(Collectors.toList()));
+        assertEquals(NUMBER_OF_PERSONS / 2, persons.size(), "Number of persons");
+        persons.forEach(person -> assertEquals(0, person.getId() % 2, "Id of even person"));
+    }
+
+    @Test
+    void shouldNot_stream_withoutTransaction() {
+        assertThrows(IllegalTransactionStateException.class, () -> personRepository.streamAll());
+    }
+
+    @Test
+    void should_scanAll_throughSamePerson() {
+        Set<Integer> ids = new HashSet<>();
+        Set<Person> instances = Collections.newSetFromMap(new IdentityHashMap<>());
+        long count = personRepository.scanAll(person -> {
+            ids.add(person.getId());
+            instances.add(person);
+        });
+        assertEquals(NUMBER_OF_PERSONS, count, "Number of persons");
+        assertEquals(NUMBER_OF_PERSONS, ids.size(), "Number of ids");
+        assertEquals(1, instances.size(), "Number of person instances");
+    }
+
+    @Test
+    void should_scanRows() {
+        long[] sumOfIds = {0};
+        long count = personRepository.scanRows((personId, personName) -> sumOfIds[0] += personId);
+        assertEquals(NUMBER_OF_PERSONS, count, "Number of persons");
+        assertEquals(NUMBER_OF_PERSONS * (NUMBER_OF_PERSONS + 1) / 2, sumOfIds[0], "Sum of ids");
+    }
+
+    @Test
+    void should_scanRows_byNameStartsWith() {
+        Set<String> names = new HashSet<>();
+        long count = personRepository.scanRowsByNameStartsWith("Even", (personId, personName) -> names.add(personName));
+        assertEquals(NUMBER_OF_PERSONS / 2, count, "Number of persons");
+        assertTrue(names.contains("Even #" + NUMBER_OF_PERSONS), "Names contain last even person");
+    }
+
+    @Test
+    void should_scanAll_byNameStartsWith() {
+        Person[] last = new Person[1];
+        long count = personRepository.scanAllByNameStartsWith("Odd", person -> {
+            assertEquals(1, person.getId() % 2, "Id of odd person");
+            if (last[0] != null) {
+                assertSame(last[0], person, "Person instance");
+            }
+            last[0] = person;
+        });
+        assertEquals(NUMBER_OF_PERSONS / 2, count, "Number of persons");
+    }
+
+    @Test
+    void should_select_byNameStartsWith_caseSensitively() {
+        // Like PersonNameIndex, so the indexed repository finds the same persons
+        assertTrue(personRepository.selectAllByNameStartsWith("even").isEmpty(), "Names are case-sensitive");
+    }
+
+    @Test
+    void should_selectPages() {
+        List<Integer> ids = new ArrayList<>();
+        Integer afterId = null;
+        List<Person> page;
+        do {
+            page = personRepository.selectPage(afterId, 30);
+            page.forEach(person -> ids.add(person.getId()));
+            afterId = page.isEmpty() ? null : page.get(page.size() - 1).getId();
+        } while (page.size() == 30);
+        assertEquals(IntStream.rangeClosed(1, NUMBER_OF_PERSONS).boxed().collect(Collectors.toList()), ids,
+                "Ids of all pages");
+    }
+
+    @Test
+    void should_selectPage_byNameStartsWith() {
+        List<Person> firstPage = personRepository.selectPageByNameStartsWith("Odd", null, 10);
+        assertEquals(10, firstPage.size(), "Size of first page");
+        assertEquals(1, firstPage.get(0).getId(), "First id of first page");
+        List<Person> secondPage = personRepository.selectPageByNameStartsWith("Odd", 19, 10);
+        assertEquals(10, secondPage.size(), "Size of second page");
+        assertEquals(21, secondPage.get(0).getId(), "First id of second page");
+        assertEquals(39, secondPage.get(9).getId(), "Last id of second page");
+        List<Person> lastPage = personRepository.selectPageByNameStartsWith("Odd", 99, 10);
+        assertTrue(lastPage.isEmpty(), "Last page is empty");
+    }
+
+    @Test
+    void should_selectAll_byNameStartsWith_withWildcards() {
+        personRepository.insert(NUMBER_OF_PERSONS + 1, "100% Odd");
+        personRepository.insert(NUMBER_OF_PERSONS + 2, "100_ Odd");
+        List<Person> persons = personRepository.selectAllByNameStartsWith("100%");
+        assertEquals(1, persons.size(), "Number of persons");
+        assertEquals("100% Odd", persons.get(0).getName(), "Person's name");
+    }
+
+    @Test
+    void should_insert_person() {
+        Person person = personRepository.insert(NUMBER_OF_PERSONS + 1, "Tom");
+        assertEquals(new Person(NUMBER_OF_PERSONS + 1, "Tom"), person, "Inserted person");
+        assertEquals(person, personRepository.selectById(NUMBER_OF_PERSONS + 1), "Selected person");
+    }
+
+    @Test
+    void should_insertAll_persons_byChunks() {
+        List<Person> persons = IntStream.rangeClosed(NUMBER_OF_PERSONS + 1, NUMBER_OF_PERSONS + 50)
+                .mapToObj(id -> new Person(id, "New #" + id))
+                .collect(Collectors.toList());
+        assertEquals(50, personRepository.insertAll(persons), "Number of inserted persons");
+        assertEquals(NUMBER_OF_PERSONS + 50, personRepository.selectAll().size(), "Number of persons");
+        assertEquals(50, personRepository.selectAllByNameStartsWith("New").size(), "Number of new persons");
+        assertEquals(0, personRepository.insertAll(List.of()), "Number of inserted persons");
+    }
+
+    @Test
+    void should_upsert_person() {
+        assertEquals(1, personRepository.upsert(new Person(NUMBER_OF_PERSONS + 1, "Tom")), "Inserted rows");
+        assertEquals("Tom", personRepository.selectById(NUMBER_OF_PERSONS + 1).getName(), "Name of inserted person");
+        assertTrue(personRepository.upsert(new Person(1, "Jack")) > 0, "Updated rows");
+        assertEquals("Jack", personRepository.selectById(1).getName(), "Name of updated person");
+    }
+
+    @Test
+    void should_upsertAll_persons_byChunks() {
+        List<Person> persons = IntStream.rangeClosed(NUMBER_OF_PERSONS - 24, NUMBER_OF_PERSONS + 25)
+                .mapToObj(id -> new Person(id, "Upserted #" + id))
+                .collect(Collectors.toList());
+        persons.add(new Person(NUMBER_OF_PERSONS, "Last"));
+        UpsertReport report = personRepository.upsertAll(persons);
+        assertEquals(50, report.getPersons(), "Number of distinct persons");
+        assertEquals(4, report.getAffectedRows().size(), "Number of statements");
+        assertTrue(report.getTotalAffectedRows() >= 50, "Total affected rows");
+        assertEquals(NUMBER_OF_PERSONS + 25, personRepository.selectAll().size(), "Number of persons");
+        assertEquals(49, personRepository.selectAllByNameStartsWith("Upserted").size(), "Number of upserted persons");
+        assertEquals("Last", personRepository.selectById(NUMBER_OF_PERSONS).getName(), "Name of repeated person");
+    }
+}
@@ -0,0 +1,53 @@
+package dev.alexengrig.tx.isolation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = {"person.bulk-load.chunk-size=100", "person.bulk-load.buffer-size=1KB"})
+@Testcontainers
+@Sql(statements = "DROP TABLE IF EXISTS person")
+@Sql("classpath:db/person/mysql.sql")
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection", "SpringJavaInjectionPointsAutowiringInspection"})
+class PersonBulkLoaderTest extends DbContainerTest {
+    @Autowired
+    PersonBulkLoader loader;
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("TRUNCATE TABLE person");
+    }
+
+    @Test
+    void should_load_persons() {
+        BulkLoadReport report = loader.load(IntStream.rangeClosed(1, 1234).mapToObj(id -> new Person(id, "#" + id)));
+        assertEquals(1234, report.getRows(), "Number of loaded persons");
+        assertTrue(report.getRowsPerSecond() > 0, "Rows per second");
+        assertEquals(1234, personRepository.selectAll().size(), "Number of persons");
+        assertEquals(new Person(1234, "#1234"), personRepository.selectById(1234), "Last person");
+    }
+
+    @Test
+    void should_load_persons_withSpecialNames() {
+        loader.load(Stream.of(new Person(1, ""), new Person(2, "\"Quoted\""), new Person(3, "Comma, person"),
+                new Person(4, "Line\nbreak")));
+        assertEquals("", personRepository.selectById(1).getName(), "Empty name");
+        assertEquals("\"Quoted\"", personRepository.selectById(2).getName(), "Quoted name");
+        assertEquals("Comma, person", personRepository.selectById(3).getName(), "Name with comma");
+        assertEquals("Line\nbreak", personRepository.selectById(4).getName(), "Name with line break");
+    }
+}
@@ -0,0 +1,48 @@
+package dev.alexengrig.tx.isolation;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class PersonNameIndexTest {
+    final PersonNameIndex index = new PersonNameIndex();
+
+    @Test
+    void should_find_byNameStartsWith() {
+        index.put(1, "Jack");
+        index.put(2, "Jacob");
+        index.put(3, "John");
+        index.put(4, "Ja");
+        index.put(5, "J");
+        assertEquals(List.of(4, 1, 2), ids(index.findAllByNameStartsWith("Ja")), "Ids of 'Ja' persons");
+        assertEquals(5, index.findAllByNameStartsWith("").size(), "Number of all persons");
+        assertTrue(index.findAllByNameStartsWith("ja").isEmpty(), "Names are case-sensitive");
+    }
+
+    @Test
+    void should_follow_changes() {
+        index.put(1, "Jack");
+        index.put(2, "Jacob");
+        index.put(1, "Tom");
+        assertEquals(List.of(2), ids(index.findAllByNameStartsWith("Ja")), "Ids of 'Ja' persons after update");
+        assertEquals(List.of(1), ids(index.findAllByNameStartsWith("To")), "Ids of 'To' persons after update");
+        index.remove(2);
+        assertTrue(index.findAllByNameStartsWith("Ja").isEmpty(), "No 'Ja' persons after delete");
+        assertEquals(1, index.size(), "Number of persons");
+    }
+
+    @Test
+    void should_return_copies() {
+        index.put(1, "Jack");
+        index.findAllByNameStartsWith("Ja").get(0).setName("Tom");
+        assertEquals("Jack", index.findAllByNameStartsWith("Ja").get(0).getName(), "Name in index");
+    }
+
+    static List<Integer> ids(List<Person> persons) {
+        return persons.stream().map(Person::getId).collect(Collectors.toList());
+    }
+}
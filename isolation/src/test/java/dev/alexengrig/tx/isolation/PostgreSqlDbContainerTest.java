@@ -0,0 +1,32 @@
+package dev.alexengrig.tx.isolation;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.JdbcDatabaseContainer;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Like {@link DbContainerTest}, but for PostgreSQL-only paths.
+ */
+public abstract class PostgreSqlDbContainerTest {
+    @SuppressWarnings("resource")
+    @Container
+    protected static final JdbcDatabaseContainer<?> DB_CONTAINER = new PostgreSQLContainer<>("postgres")
+            .withReuse(true);
+
+    @DynamicPropertySource
+    static void setDbContainerDataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", DB_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", DB_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", DB_CONTAINER::getPassword);
+    }
+
+    @Test
+    void should_run() {
+        assertTrue(DB_CONTAINER.isRunning(), "Db container must be running");
+    }
+}
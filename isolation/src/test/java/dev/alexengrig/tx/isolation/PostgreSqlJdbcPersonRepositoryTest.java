@@ -0,0 +1,49 @@
+package dev.alexengrig.tx.isolation;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.jdbc.Sql;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@SpringBootTest(properties = "person.insert-chunk-size=2")
+@Testcontainers
+@Sql(statements = "DROP TABLE IF EXISTS person")
+@Sql("classpath:db/person/postgresql.sql")
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection", "SpringJavaInjectionPointsAutowiringInspection"})
+class PostgreSqlJdbcPersonRepositoryTest extends PostgreSqlDbContainerTest {
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @AfterEach
+    void afterEach() {
+        jdbcTemplate.execute("TRUNCATE TABLE person");
+    }
+
+    @Test
+    void should_upsert_person() {
+        assertEquals(1, personRepository.upsert(new Person(1, "Tom")), "Inserted rows");
+        assertEquals(1, personRepository.upsert(new Person(1, "Jack")), "Updated rows");
+        assertEquals("Jack", personRepository.selectById(1).getName(), "Name of updated person");
+    }
+
+    @Test
+    void should_upsertAll_persons_byChunks() {
+        personRepository.upsert(new Person(1, "Tom"));
+        UpsertReport report = personRepository.upsertAll(List.of(
+                new Person(1, "Jack"), new Person(2, "Jacob"), new Person(3, "John"), new Person(2, "James")));
+        assertEquals(3, report.getPersons(), "Number of distinct persons");
+        assertEquals(2, report.getAffectedRows().size(), "Number of statements");
+        assertEquals(3, report.getTotalAffectedRows(), "Total affected rows");
+        assertEquals("Jack", personRepository.selectById(1).getName(), "Name of updated person");
+        assertEquals("James", personRepository.selectById(2).getName(), "Name of repeated person");
+    }
+}
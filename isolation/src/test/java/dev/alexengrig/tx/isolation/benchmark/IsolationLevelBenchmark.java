@@ -0,0 +1,268 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import dev.alexengrig.tx.isolation.Person;
+import dev.alexengrig.tx.isolation.PersonRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Measures what every isolation level costs by workload mix over the same {@link TransactionTemplate}
+ * and {@link PersonRepository}: throughput, p50/p99 latency of committed transactions,
+ * aborts by concurrency failures, lock waits and lost updates of read-modify-write increments.
+ * <p>
+ * A subclass runs it against its database.
+ */
+@Tag("benchmark")
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection", "SpringJavaInjectionPointsAutowiringInspection"})
+abstract class IsolationLevelBenchmark {
+    static final int THREADS = 8;
+    static final int TRANSACTIONS_PER_THREAD = 200;
+    static final int NUMBER_OF_PERSONS = 64;
+    static final int WARM_UP_TRANSACTIONS = 200;
+
+    @Autowired
+    PersonRepository personRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    /**
+     * Persons hold counters in their names, so read-modify-write increments can be checked for lost updates.
+     * Every transaction writes persons in id order, so writers wait for each other instead of deadlocking.
+     */
+    @RequiredArgsConstructor
+    enum Workload {
+        /**
+         * 9 reads and a blind write.
+         */
+        READ_HEAVY(9, 1, 0),
+        /**
+         * A read and 9 blind writes.
+         */
+        WRITE_HEAVY(1, 9, 0),
+        /**
+         * 2 increments, each reads a person and writes it back.
+         */
+        READ_MODIFY_WRITE(0, 0, 2);
+
+        final int reads;
+        final int writes;
+        final int increments;
+    }
+
+    /**
+     * @return levels of {@link TransactionDefinition} that the database supports
+     */
+    List<Integer> isolationLevels() {
+        return List.of(TransactionDefinition.ISOLATION_READ_UNCOMMITTED,
+                TransactionDefinition.ISOLATION_READ_COMMITTED,
+                TransactionDefinition.ISOLATION_REPEATABLE_READ,
+                TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    void createTable() {
+        jdbcTemplate.execute("""
+                CREATE TABLE IF NOT EXISTS person (
+                    id INT PRIMARY KEY,
+                    name VARCHAR(255) NOT NULL
+                )
+                """);
+    }
+
+    /**
+     * Starts counting waits for row locks by all sessions.
+     */
+    void startLockWaitCounting() {
+    }
+
+    /**
+     * @return number of waits for row locks since the start, {@code -1} if the database doesn't tell
+     */
+    long stopLockWaitCounting() {
+        return -1;
+    }
+
+    Stream<Arguments> workloadsByIsolationLevel() {
+        return Stream.of(Workload.values())
+                .flatMap(workload -> isolationLevels().stream().map(level -> Arguments.of(workload, level)));
+    }
+
+    @BeforeAll
+    void beforeAll() {
+        createTable();
+        beforeEach();
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        for (Workload workload : Workload.values()) {
+            for (int i = 0; i < WARM_UP_TRANSACTIONS; i++) {
+                txTemplate.executeWithoutResult(status -> execute(workload));
+            }
+        }
+    }
+
+    @BeforeEach
+    void beforeEach() {
+        jdbcTemplate.update("DELETE FROM person");
+        personRepository.insertAll(IntStream.rangeClosed(1, NUMBER_OF_PERSONS)
+                .mapToObj(id -> new Person(id, "0"))
+                .collect(Collectors.toList()));
+    }
+
+    @ParameterizedTest(name = "{0} with isolation level {1}")
+    @MethodSource("workloadsByIsolationLevel")
+    @SneakyThrows(InterruptedException.class)
+    void run(Workload workload, int isolationLevel) {
+        TransactionTemplate txTemplate = new TransactionTemplate(transactionManager);
+        txTemplate.setIsolationLevel(isolationLevel);
+        long[][] latencies = new long[THREADS][TRANSACTIONS_PER_THREAD];
+        int[] commits = new int[THREADS];
+        AtomicInteger aborts = new AtomicInteger();
+        AtomicInteger committedIncrements = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> workers = new ArrayList<>(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            workers.add(executorService.submit(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < TRANSACTIONS_PER_THREAD; i++) {
+                    long start = System.nanoTime();
+                    try {
+                        txTemplate.executeWithoutResult(status -> execute(workload));
+                        latencies[thread][commits[thread]++] = System.nanoTime() - start;
+                        committedIncrements.addAndGet(workload.increments);
+                    } catch (ConcurrencyFailureException e) {
+                        aborts.incrementAndGet();
+                    }
+                }
+            }));
+        }
+        long elapsedNanos;
+        long lockWaits;
+        startLockWaitCounting();
+        try {
+            long start = System.nanoTime();
+            latch.countDown();
+            executorService.shutdown();
+            if (!executorService.awaitTermination(5, TimeUnit.MINUTES)) {
+                executorService.shutdownNow();
+                fail("Timeout expired");
+            }
+            requireNoFailures(workers);
+            elapsedNanos = System.nanoTime() - start;
+        } finally {
+            // A failed run must not leave counting running into the next ones
+            lockWaits = stopLockWaitCounting();
+        }
+        long[] sortedLatencies = IntStream.range(0, THREADS).boxed()
+                .flatMapToLong(thread -> Arrays.stream(latencies[thread], 0, commits[thread]))
+                .sorted()
+                .toArray();
+        String lostUpdates = workload.increments > 0
+                ? String.valueOf(committedIncrements.get() - sumOfCounters())
+                : "n/a";
+        System.out.printf("%-17s %-16s commits=%-4d aborts=%-4d throughput=%.1f tx/s p50=%.2f ms p99=%.2f ms " +
+                        "lock waits=%s lost updates=%s%n",
+                workload, isolationLevelName(isolationLevel), sortedLatencies.length, aborts.get(),
+                sortedLatencies.length * 1e9 / elapsedNanos,
+                percentile(sortedLatencies, 50) / 1e6, percentile(sortedLatencies, 99) / 1e6,
+                lockWaits < 0 ? "n/a" : String.valueOf(lockWaits), lostUpdates);
+    }
+
+    /**
+     * Fails the run by failures of workers, other than aborts, which would end them early and skew results.
+     */
+    @SneakyThrows(InterruptedException.class)
+    static void requireNoFailures(List<Future<?>> workers) {
+        AssertionError failure = null;
+        for (Future<?> worker : workers) {
+            try {
+                worker.get();
+            } catch (ExecutionException e) {
+                if (failure == null) {
+                    failure = new AssertionError("Worker failed", e.getCause());
+                } else {
+                    failure.addSuppressed(e.getCause());
+                }
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    void execute(Workload workload) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < workload.reads; i++) {
+            personRepository.selectById(random.nextInt(1, NUMBER_OF_PERSONS + 1));
+        }
+        for (int personId : randomSortedIds(workload.writes)) {
+            personRepository.updateNameById(personId, String.valueOf(random.nextInt(1000)));
+        }
+        for (int personId : randomSortedIds(workload.increments)) {
+            int counter = Integer.parseInt(personRepository.selectById(personId).getName());
+            personRepository.updateNameById(personId, String.valueOf(counter + 1));
+        }
+    }
+
+    static int[] randomSortedIds(int count) {
+        return ThreadLocalRandom.current().ints(count, 1, NUMBER_OF_PERSONS + 1).sorted().toArray();
+    }
+
+    long sumOfCounters() {
+        return personRepository.selectAll().stream().mapToLong(person -> Long.parseLong(person.getName())).sum();
+    }
+
+    static long percentile(long[] sortedValues, int percentile) {
+        if (sortedValues.length == 0) {
+            return 0;
+        }
+        return sortedValues[Math.max(0, (int) Math.ceil(percentile / 100.0 * sortedValues.length) - 1)];
+    }
+
+    static String isolationLevelName(int isolationLevel) {
+        return switch (isolationLevel) {
+            case TransactionDefinition.ISOLATION_READ_UNCOMMITTED -> "READ_UNCOMMITTED";
+            case TransactionDefinition.ISOLATION_READ_COMMITTED -> "READ_COMMITTED";
+            case TransactionDefinition.ISOLATION_REPEATABLE_READ -> "REPEATABLE_READ";
+            case TransactionDefinition.ISOLATION_SERIALIZABLE -> "SERIALIZABLE";
+            default -> String.valueOf(isolationLevel);
+        };
+    }
+}
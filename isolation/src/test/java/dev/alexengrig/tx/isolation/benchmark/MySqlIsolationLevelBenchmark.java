@@ -0,0 +1,43 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.MySQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.Objects;
+
+@SpringBootTest(properties = "logging.level.root=warn")
+@Testcontainers
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class MySqlIsolationLevelBenchmark extends IsolationLevelBenchmark {
+    @SuppressWarnings("resource")
+    @Container
+    static final MySQLContainer<?> DB_CONTAINER = new MySQLContainer<>("mysql");
+
+    long rowLockWaits;
+
+    @DynamicPropertySource
+    static void setDbContainerDataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", DB_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", DB_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", DB_CONTAINER::getPassword);
+    }
+
+    @Override
+    void startLockWaitCounting() {
+        rowLockWaits = innodbRowLockWaits();
+    }
+
+    @Override
+    long stopLockWaitCounting() {
+        return innodbRowLockWaits() - rowLockWaits;
+    }
+
+    long innodbRowLockWaits() {
+        return Objects.requireNonNull(jdbcTemplate.query("SHOW GLOBAL STATUS LIKE 'Innodb_row_lock_waits'",
+                rs -> rs.next() ? rs.getLong("Value") : null), "Innodb_row_lock_waits");
+    }
+}
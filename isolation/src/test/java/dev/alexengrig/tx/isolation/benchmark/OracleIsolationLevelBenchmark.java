@@ -0,0 +1,47 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.transaction.TransactionDefinition;
+import org.testcontainers.containers.OracleContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.Objects;
+
+/**
+ * Oracle has only READ COMMITTED and SERIALIZABLE, and the application user can't read
+ * {@code v$session}, so lock waits aren't counted.
+ */
+@SpringBootTest(properties = "logging.level.root=warn")
+@Testcontainers
+class OracleIsolationLevelBenchmark extends IsolationLevelBenchmark {
+    @SuppressWarnings("resource")
+    @Container
+    static final OracleContainer DB_CONTAINER = new OracleContainer("gvenzl/oracle-xe:slim");
+
+    @DynamicPropertySource
+    static void setDbContainerDataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", DB_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", DB_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", DB_CONTAINER::getPassword);
+    }
+
+    @Override
+    List<Integer> isolationLevels() {
+        return List.of(TransactionDefinition.ISOLATION_READ_COMMITTED, TransactionDefinition.ISOLATION_SERIALIZABLE);
+    }
+
+    @Override
+    void createTable() {
+        ResourceDatabasePopulator populator =
+                new ResourceDatabasePopulator(new ClassPathResource("db/person/oracle.sql"));
+        // PL/SQL blocks of the script are separated like in SQL*Plus
+        populator.setSeparator("/");
+        populator.execute(Objects.requireNonNull(jdbcTemplate.getDataSource(), "Data source"));
+    }
+}
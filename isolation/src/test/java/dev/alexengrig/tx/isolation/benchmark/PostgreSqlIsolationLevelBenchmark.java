@@ -0,0 +1,35 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+@SpringBootTest(properties = "logging.level.root=warn")
+@Testcontainers
+class PostgreSqlIsolationLevelBenchmark extends IsolationLevelBenchmark {
+    @SuppressWarnings("resource")
+    @Container
+    static final PostgreSQLContainer<?> DB_CONTAINER = new PostgreSQLContainer<>("postgres");
+
+    final PostgreSqlLockWaitSampler lockWaitSampler = new PostgreSqlLockWaitSampler();
+
+    @DynamicPropertySource
+    static void setDbContainerDataSource(DynamicPropertyRegistry registry) {
+        registry.add("spring.datasource.url", DB_CONTAINER::getJdbcUrl);
+        registry.add("spring.datasource.username", DB_CONTAINER::getUsername);
+        registry.add("spring.datasource.password", DB_CONTAINER::getPassword);
+    }
+
+    @Override
+    void startLockWaitCounting() {
+        lockWaitSampler.start(jdbcTemplate);
+    }
+
+    @Override
+    long stopLockWaitCounting() {
+        return lockWaitSampler.stop();
+    }
+}
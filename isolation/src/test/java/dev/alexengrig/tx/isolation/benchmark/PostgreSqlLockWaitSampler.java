@@ -0,0 +1,48 @@
+package dev.alexengrig.tx.isolation.benchmark;
+
+import lombok.SneakyThrows;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * PostgreSQL has no counter of lock waits, so the sampler polls {@code pg_stat_activity}
+ * and counts distinct statements seen waiting for a lock; waits shorter than the period can be missed.
+ */
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class PostgreSqlLockWaitSampler {
+    static final long PERIOD_MILLIS = 5;
+
+    final Set<String> waitingStatements = new HashSet<>();
+    Thread thread;
+
+    void start(JdbcTemplate jdbcTemplate) {
+        waitingStatements.clear();
+        thread = new Thread(() -> {
+            while (!Thread.currentThread().isInterrupted()) {
+                jdbcTemplate.query("""
+                                SELECT pid, query_start
+                                FROM pg_stat_activity
+                                WHERE wait_event_type = 'Lock' AND datname = current_database()
+                                """,
+                        (RowCallbackHandler) rs ->
+                                waitingStatements.add(rs.getInt("pid") + "@" + rs.getTimestamp("query_start")));
+                try {
+                    Thread.sleep(PERIOD_MILLIS);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }, "lock-wait-sampler");
+        thread.start();
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    long stop() {
+        thread.interrupt();
+        thread.join();
+        return waitingStatements.size();
+    }
+}
@@ -0,0 +1,47 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.converter.ManEntityConverter;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.entity.ManEntity;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Benchmark)
+public class ManEntityConverterBenchmark {
+    ManEntityConverter converter;
+    ManEntity single;
+    ManEntity linked;
+
+    @Setup
+    public void setup() {
+        converter = new ManEntityConverter();
+        single = new ManEntity(1L, null, "Juliet", 0L);
+        linked = new ManEntity(2L, null, "Romeo", 1L);
+        linked.setPartner(single);
+    }
+
+    @Benchmark
+    public Man convertSingle() {
+        return converter.convert(single);
+    }
+
+    @Benchmark
+    public Man convertLinked() {
+        return converter.convert(linked);
+    }
+}
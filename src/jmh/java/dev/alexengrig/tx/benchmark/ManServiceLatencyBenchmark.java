@@ -0,0 +1,63 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.service.ReadConsistency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single-threaded latency of {@code ManService} operations.
+ */
+@Fork(1)
+@Threads(1)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ManServiceLatencyBenchmark {
+    @Benchmark
+    public Man create(ManServiceState state) {
+        return state.service.create(state.nextName());
+    }
+
+    @Benchmark
+    public Man get(ManServiceState state) {
+        // Without a cache it is a snapshot read
+        return state.service.get(state.nextId(), ReadConsistency.CACHED);
+    }
+
+    @Benchmark
+    public Man update(ManServiceState state) {
+        return state.service.update(state.nextId(), state.nextName());
+    }
+
+    @Benchmark
+    public void link(ManServiceState state, FreePair pair) throws NotFreeManException {
+        state.service.link(pair.manId, pair.anotherManId);
+    }
+
+    @State(Scope.Thread)
+    public static class FreePair {
+        long manId;
+        long anotherManId;
+
+        @Setup(Level.Invocation)
+        public void setup(ManServiceState state) {
+            manId = state.service.create(state.nextName()).getId();
+            anotherManId = state.service.create(state.nextName()).getId();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.service.ManService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+@State(Scope.Benchmark)
+public class ManServiceState {
+    static final int MEN = 10_000;
+
+    @Param({"pessimistic", "optimistic"})
+    public String concurrencyStrategy;
+    @Param({"false", "true"})
+    public boolean cacheEnabled;
+    @Param({"uniform", "zipfian"})
+    public String distribution;
+
+    TxApplicationState application;
+    ManService service;
+    long[] ids;
+    ZipfianGenerator zipfianGenerator;
+
+    @Setup(Level.Trial)
+    public void setup() throws Exception {
+        application = new TxApplicationState(
+                "tx.man.concurrency-strategy=" + concurrencyStrategy,
+                "tx.man.cache.enabled=" + cacheEnabled);
+        service = application.getBean(ManService.class);
+        ids = service.createAll(IntStream.range(0, MEN).mapToObj(i -> "Man #" + i).collect(Collectors.toList()))
+                .stream().mapToLong(Man::getId).toArray();
+        zipfianGenerator = new ZipfianGenerator(MEN, 0.99);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        application.close();
+    }
+
+    long nextId() {
+        if ("zipfian".equals(distribution)) {
+            return ids[zipfianGenerator.next()];
+        }
+        return ids[ThreadLocalRandom.current().nextInt(ids.length)];
+    }
+
+    String nextName() {
+        return "Man #" + ThreadLocalRandom.current().nextLong();
+    }
+}
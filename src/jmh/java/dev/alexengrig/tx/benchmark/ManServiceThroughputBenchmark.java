@@ -0,0 +1,41 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.service.ReadConsistency;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Multi-threaded throughput of {@code ManService} operations on chosen men.
+ */
+@Fork(1)
+@Threads(8)
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class ManServiceThroughputBenchmark {
+    @Benchmark
+    public Man get(ManServiceState state) {
+        // Without a cache it is a snapshot read
+        return state.service.get(state.nextId(), ReadConsistency.CACHED);
+    }
+
+    @Benchmark
+    public Object update(ManServiceState state) {
+        try {
+            return state.service.update(state.nextId(), state.nextName());
+        } catch (RuntimeException e) {
+            // Optimistic conflicts beyond the retry budget are part of the measured cost
+            return e;
+        }
+    }
+}
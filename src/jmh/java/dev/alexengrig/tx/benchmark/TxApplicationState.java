@@ -0,0 +1,54 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.TxApplication;
+import io.zonky.test.db.postgres.embedded.EmbeddedPostgres;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Embedded PostgreSQL with the application on top of it.
+ */
+public class TxApplicationState implements AutoCloseable {
+    private final EmbeddedPostgres postgres;
+    private final ConfigurableApplicationContext context;
+
+    public TxApplicationState(String... properties) throws IOException, SQLException {
+        postgres = EmbeddedPostgres.builder().start();
+        try (Connection connection = postgres.getPostgresDatabase().getConnection();
+             Statement statement = connection.createStatement()) {
+            statement.execute("CREATE ROLE txdb LOGIN PASSWORD 'txdb'");
+            statement.execute("CREATE DATABASE txdb OWNER txdb");
+        }
+        // As command line arguments, default properties are overridden by application.yml
+        List<String> args = new ArrayList<>(List.of(
+                "spring.datasource.url=" + postgres.getJdbcUrl("txdb", "txdb") + "&currentSchema=txdb",
+                "spring.jpa.show-sql=false",
+                "logging.level.root=warn",
+                "logging.level.dev.alexengrig.tx.service=warn",
+                "logging.level.org.springframework.transaction=warn",
+                "logging.level.org.hibernate.type.descriptor.sql=warn"));
+        args.addAll(List.of(properties));
+        context = new SpringApplicationBuilder(TxApplication.class)
+                .run(args.stream().map(property -> "--" + property).toArray(String[]::new));
+    }
+
+    public <T> T getBean(Class<T> type) {
+        return context.getBean(type);
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            context.close();
+        } finally {
+            postgres.close();
+        }
+    }
+}
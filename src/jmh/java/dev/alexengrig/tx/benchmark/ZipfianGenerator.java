@@ -0,0 +1,29 @@
+package dev.alexengrig.tx.benchmark;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Chooses indexes from {@code [0, size)}, where index {@code i} has weight {@code 1 / (i + 1)^exponent}.
+ */
+public class ZipfianGenerator {
+    private final double[] cumulativeProbabilities;
+
+    public ZipfianGenerator(int size, double exponent) {
+        cumulativeProbabilities = new double[size];
+        double sum = 0;
+        for (int i = 0; i < size; i++) {
+            sum += 1 / Math.pow(i + 1, exponent);
+            cumulativeProbabilities[i] = sum;
+        }
+        for (int i = 0; i < size; i++) {
+            cumulativeProbabilities[i] /= sum;
+        }
+    }
+
+    public int next() {
+        double probability = ThreadLocalRandom.current().nextDouble();
+        int index = Arrays.binarySearch(cumulativeProbabilities, probability);
+        return Math.min(index >= 0 ? index : -index - 1, cumulativeProbabilities.length - 1);
+    }
+}
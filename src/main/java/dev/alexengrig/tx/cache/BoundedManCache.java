@@ -0,0 +1,205 @@
+package dev.alexengrig.tx.cache;
+
+import dev.alexengrig.tx.domain.Man;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+public class BoundedManCache implements ManCache {
+    // Power of two
+    private static final int REMOVED_VERSION_STRIPES = 1024;
+
+    // Invalidation leaves a tombstone of a new version, a load caches a man only if his version didn't change
+    private final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+    private final Queue<Entry> insertionOrder = new ConcurrentLinkedQueue<>();
+    // Bounded apart from men, so a burst of invalidations doesn't evict cached men
+    private final Queue<Entry> tombstoneOrder = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger queued = new AtomicInteger();
+    private final AtomicInteger queuedTombstones = new AtomicInteger();
+    // Number of entries with men
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong clock = new AtomicLong();
+    // Versions of removed entries by stripes of ids, an absent man has the version of his stripe
+    private final AtomicLongArray removedVersions = new AtomicLongArray(REMOVED_VERSION_STRIPES);
+    private final LongAdder hitCount = new LongAdder();
+    private final LongAdder missCount = new LongAdder();
+    private final LongAdder evictionCount = new LongAdder();
+    private final LongAdder loadCount = new LongAdder();
+    private final LongAdder totalLoadTimeNanos = new LongAdder();
+    private final int maximumSize;
+    private final long timeToLiveNanos;
+    private final LongSupplier nanoTime;
+
+    public BoundedManCache(int maximumSize, Duration timeToLive) {
+        this(maximumSize, timeToLive, System::nanoTime);
+    }
+
+    BoundedManCache(int maximumSize, Duration timeToLive, LongSupplier nanoTime) {
+        if (maximumSize < 1) {
+            throw new IllegalArgumentException("Maximum size must be positive: " + maximumSize);
+        }
+        this.maximumSize = maximumSize;
+        this.timeToLiveNanos = Objects.requireNonNull(timeToLive, "Time to live must not be null").toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    @Override
+    public Optional<Man> getIfPresent(Long manId) {
+        Entry entry = entries.get(manId);
+        if (entry != null && entry.isExpired(nanoTime.getAsLong())) {
+            evict(entry);
+            entry = null;
+        }
+        if (entry == null || entry.man == null) {
+            missCount.increment();
+            return Optional.empty();
+        }
+        hitCount.increment();
+        return Optional.of(entry.man);
+    }
+
+    @Override
+    public Man get(Long manId, Function<? super Long, ? extends Man> loader) {
+        Optional<Man> cachedMan = getIfPresent(manId);
+        if (cachedMan.isPresent()) {
+            return cachedMan.get();
+        }
+        long version = versionOf(manId);
+        long start = nanoTime.getAsLong();
+        Man man;
+        try {
+            man = loader.apply(manId);
+        } finally {
+            loadCount.increment();
+            totalLoadTimeNanos.add(nanoTime.getAsLong() - start);
+        }
+        put(man, version);
+        return man;
+    }
+
+    @Override
+    public void invalidate(Long manId) {
+        Entry tombstone = new Entry(manId, null, clock.incrementAndGet(), nanoTime.getAsLong() + timeToLiveNanos);
+        Entry oldEntry = entries.put(manId, tombstone);
+        if (oldEntry != null && oldEntry.man != null) {
+            size.decrementAndGet();
+        }
+        tombstoneOrder.add(tombstone);
+        queuedTombstones.incrementAndGet();
+        while (queuedTombstones.get() > maximumSize) {
+            Entry oldestTombstone = tombstoneOrder.poll();
+            if (oldestTombstone == null) {
+                break;
+            }
+            queuedTombstones.decrementAndGet();
+            remove(oldestTombstone);
+        }
+    }
+
+    @Override
+    public void invalidateAll() {
+        // Loads that started before see another version on put, whether their entries are removed or not
+        long version = clock.incrementAndGet();
+        for (int stripe = 0; stripe < REMOVED_VERSION_STRIPES; stripe++) {
+            removedVersions.accumulateAndGet(stripe, version, Math::max);
+        }
+        entries.values().forEach(this::remove);
+    }
+
+    @Override
+    public ManCacheStats stats() {
+        return new ManCacheStats(hitCount.sum(), missCount.sum(), evictionCount.sum(),
+                loadCount.sum(), totalLoadTimeNanos.sum(), size.get());
+    }
+
+    private long versionOf(Long manId) {
+        Entry entry = entries.get(manId);
+        return entry != null ? entry.version : removedVersions.get(stripeOf(manId));
+    }
+
+    private static int stripeOf(Long manId) {
+        int hash = Long.hashCode(manId);
+        return (hash ^ hash >>> 16) & (REMOVED_VERSION_STRIPES - 1);
+    }
+
+    private void put(Man man, long version) {
+        Long manId = man.getId();
+        Entry newEntry = new Entry(manId, man, version, nanoTime.getAsLong() + timeToLiveNanos);
+        Entry[] replacedEntry = new Entry[1];
+        Entry entry = entries.compute(manId, (id, oldEntry) -> {
+            long currentVersion = oldEntry != null ? oldEntry.version : removedVersions.get(stripeOf(id));
+            if (currentVersion != version) {
+                return oldEntry;
+            }
+            replacedEntry[0] = oldEntry;
+            return newEntry;
+        });
+        if (entry == newEntry) {
+            if (replacedEntry[0] == null || replacedEntry[0].man == null) {
+                size.incrementAndGet();
+            }
+            enqueue(newEntry);
+        }
+    }
+
+    private void enqueue(Entry entry) {
+        insertionOrder.add(entry);
+        queued.incrementAndGet();
+        // The queue also keeps replaced entries, drain them too
+        while (size.get() > maximumSize || queued.get() > 2 * maximumSize) {
+            Entry oldestEntry = insertionOrder.poll();
+            if (oldestEntry == null) {
+                break;
+            }
+            queued.decrementAndGet();
+            evict(oldestEntry);
+        }
+    }
+
+    private void evict(Entry entry) {
+        if (remove(entry) && entry.man != null) {
+            evictionCount.increment();
+        }
+    }
+
+    private boolean remove(Entry entry) {
+        // Raise the version before removing, so a concurrent put can't see the old version of an absent man
+        removedVersions.accumulateAndGet(stripeOf(entry.manId), entry.version, Math::max);
+        if (!entries.remove(entry.manId, entry)) {
+            return false;
+        }
+        if (entry.man != null) {
+            size.decrementAndGet();
+        }
+        return true;
+    }
+
+    private static class Entry {
+        final Long manId;
+        final Man man;
+        final long version;
+        final long expiresAtNanos;
+
+        Entry(Long manId, Man man, long version, long expiresAtNanos) {
+            this.manId = manId;
+            this.man = man;
+            this.version = version;
+            this.expiresAtNanos = expiresAtNanos;
+        }
+
+        boolean isExpired(long nowNanos) {
+            return nowNanos - expiresAtNanos >= 0;
+        }
+    }
+}
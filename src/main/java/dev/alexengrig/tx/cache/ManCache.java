@@ -0,0 +1,20 @@
+package dev.alexengrig.tx.cache;
+
+import dev.alexengrig.tx.domain.Man;
+
+import java.util.Optional;
+import java.util.function.Function;
+
+public interface ManCache {
+    Optional<Man> getIfPresent(Long manId);
+
+    // A man invalidated while loading isn't cached
+    Man get(Long manId, Function<? super Long, ? extends Man> loader);
+
+    void invalidate(Long manId);
+
+    // Men being loaded too
+    void invalidateAll();
+
+    ManCacheStats stats();
+}
@@ -0,0 +1,13 @@
+package dev.alexengrig.tx.cache;
+
+import lombok.Value;
+
+@Value
+public class ManCacheStats {
+    long hitCount;
+    long missCount;
+    long evictionCount;
+    long loadCount;
+    long totalLoadTimeNanos;
+    int size;
+}
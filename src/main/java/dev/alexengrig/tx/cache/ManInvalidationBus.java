@@ -0,0 +1,11 @@
+package dev.alexengrig.tx.cache;
+
+import java.util.Collection;
+
+public interface ManInvalidationBus {
+    ManInvalidationBus NOOP = manIds -> {
+    };
+
+    // On commit of the current transaction, or at once outside of transactions
+    void publish(Collection<Long> manIds);
+}
@@ -0,0 +1,168 @@
+package dev.alexengrig.tx.cache;
+
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.PGNotification;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.PreparedStatementCallback;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+// Notifications sent while not listening are lost, so the whole cache is invalidated on every connect
+@Slf4j
+public class PostgresManInvalidationBus implements ManInvalidationBus, DisposableBean {
+    // NOTIFY payloads are limited by 8000 bytes
+    private static final int MAX_PAYLOAD_LENGTH = 7900;
+    private static final int IDLE_POLL_MILLIS = 100;
+    private static final Pattern CHANNEL_PATTERN = Pattern.compile("[a-z_][a-z0-9_]*");
+
+    private final DataSource listenerDataSource;
+    private final JdbcTemplate jdbcTemplate;
+    private final ManCache cache;
+    private final String channel;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final long reconnectBackoffMillis;
+    private final Thread listener;
+    private volatile boolean running = true;
+
+    // The listening connection is held for the lifetime of the node, so it is outside of the pool
+    public PostgresManInvalidationBus(DataSource dataSource, DataSource listenerDataSource, ManCache cache,
+                                      String channel, int maxBatchSize, Duration window, Duration reconnectBackoff) {
+        if (!CHANNEL_PATTERN.matcher(channel).matches()) {
+            throw new IllegalArgumentException("Invalid channel: " + channel);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        this.listenerDataSource = listenerDataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.cache = cache;
+        this.channel = channel;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.reconnectBackoffMillis = reconnectBackoff.toMillis();
+        this.listener = new Thread(this::listen, "man-invalidation-listener");
+        this.listener.setDaemon(true);
+        this.listener.start();
+    }
+
+    @Override
+    public void publish(Collection<Long> manIds) {
+        if (manIds.isEmpty()) {
+            return;
+        }
+        List<String> payloads = toPayloads(manIds);
+        if (TransactionSynchronizationManager.isSynchronizationActive()
+                && TransactionSynchronizationManager.isActualTransactionActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void beforeCommit(boolean readOnly) {
+                    sendNotifications(payloads);
+                }
+            });
+        } else {
+            sendNotifications(payloads);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        listener.interrupt();
+        listener.join();
+    }
+
+    private void sendNotifications(List<String> payloads) {
+        for (String payload : payloads) {
+            jdbcTemplate.execute("SELECT pg_notify(?, ?)", (PreparedStatementCallback<Boolean>) ps -> {
+                ps.setString(1, channel);
+                ps.setString(2, payload);
+                return ps.execute();
+            });
+        }
+        log.trace("Notified {} payloads of invalidated men", payloads.size());
+    }
+
+    private static List<String> toPayloads(Collection<Long> manIds) {
+        List<String> payloads = new ArrayList<>(1);
+        StringBuilder payload = new StringBuilder();
+        for (Long manId : manIds) {
+            String id = manId.toString();
+            if (payload.length() + id.length() + 1 > MAX_PAYLOAD_LENGTH) {
+                payloads.add(payload.toString());
+                payload.setLength(0);
+            }
+            if (payload.length() > 0) {
+                payload.append(',');
+            }
+            payload.append(id);
+        }
+        payloads.add(payload.toString());
+        return payloads;
+    }
+
+    private void listen() {
+        while (running) {
+            try (Connection connection = listenerDataSource.getConnection()) {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute("LISTEN " + channel);
+                }
+                // Notifications may be missed while not listening
+                cache.invalidateAll();
+                log.debug("Listening to channel {}", channel);
+                receive(connection.unwrap(PGConnection.class));
+            } catch (SQLException | RuntimeException e) {
+                if (!running) {
+                    return;
+                }
+                log.warn("Failed to listen to channel {}, reconnecting", channel, e);
+                try {
+                    TimeUnit.MILLISECONDS.sleep(reconnectBackoffMillis);
+                } catch (InterruptedException interrupted) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void receive(PGConnection connection) throws SQLException {
+        Set<Long> batch = new HashSet<>();
+        long deadline = 0;
+        while (running) {
+            // Zero timeout blocks until a notification
+            int timeoutMillis = batch.isEmpty() ? IDLE_POLL_MILLIS
+                    : (int) Math.max(1, TimeUnit.NANOSECONDS.toMillis(deadline - System.nanoTime()));
+            PGNotification[] notifications = connection.getNotifications(timeoutMillis);
+            if (notifications != null) {
+                for (PGNotification notification : notifications) {
+                    if (batch.isEmpty()) {
+                        deadline = System.nanoTime() + windowNanos;
+                    }
+                    for (String id : notification.getParameter().split(",")) {
+                        batch.add(Long.valueOf(id));
+                    }
+                }
+            }
+            if (!batch.isEmpty() && (batch.size() >= maxBatchSize || deadline - System.nanoTime() <= 0)) {
+                log.trace("Invalidating {} men by notifications", batch.size());
+                batch.forEach(cache::invalidate);
+                batch.clear();
+            }
+        }
+    }
+}
@@ -0,0 +1,182 @@
+package dev.alexengrig.tx.config;
+
+import dev.alexengrig.tx.service.ConcurrencyStrategy;
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+@Data
+@ConfigurationProperties("tx.man")
+public class ManProperties {
+    /**
+     * How {@code update} and {@code link} protect rows from concurrent changes.
+     */
+    private ConcurrencyStrategy concurrencyStrategy = ConcurrencyStrategy.PESSIMISTIC;
+    private final Retry retry = new Retry();
+    private final Cache cache = new Cache();
+    private final Loader loader = new Loader();
+    private final BulkLoad bulkLoad = new BulkLoad();
+    private final Matchmaking matchmaking = new Matchmaking();
+    private final WriteBehind writeBehind = new WriteBehind();
+    private final GroupCommit groupCommit = new GroupCommit();
+    private final Outbox outbox = new Outbox();
+
+    @Data
+    public static class Retry {
+        private int maxAttempts = 5;
+        private Duration initialBackoff = Duration.ofMillis(5);
+        private Duration maxBackoff = Duration.ofMillis(100);
+        /**
+         * Share of calls that may be retried, shared by all calls of {@code ManService}.
+         */
+        private double budgetRatio = 0.2;
+        /**
+         * How many retries the budget saves up for a burst of failures.
+         */
+        private int budgetMaxTokens = 100;
+    }
+
+    @Data
+    public static class Cache {
+        /**
+         * Whether {@code ManService} serves {@code CACHED} reads from memory;
+         * with several nodes, invalidation must be enabled too, otherwise other nodes read stale men until TTL.
+         */
+        private boolean enabled = false;
+        private int maximumSize = 10_000;
+        private Duration timeToLive = Duration.ofMinutes(1);
+        private Invalidation invalidation = new Invalidation();
+
+        @Data
+        public static class Invalidation {
+            /**
+             * Whether changes are broadcast to caches of other nodes by PostgreSQL {@code NOTIFY}.
+             */
+            private boolean enabled = false;
+            private String channel = "man_cache_invalidation";
+            private int maxBatchSize = 1000;
+            /**
+             * How long received invalidations wait for more after the first one.
+             */
+            private Duration window = Duration.ofMillis(10);
+            private Duration reconnectBackoff = Duration.ofSeconds(1);
+        }
+    }
+
+    @Data
+    public static class Loader {
+        /**
+         * Whether concurrent snapshot reads are coalesced into batch queries.
+         */
+        private boolean batching = false;
+        private int maxBatchSize = 64;
+        /**
+         * How long a batch waits for more men after the first one.
+         */
+        private Duration window = Duration.ofMillis(1);
+        private int threads = 4;
+        /**
+         * How long a read waits for its batch before it fails.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class BulkLoad {
+        /**
+         * How many men one {@code COPY} statement loads, the source is read no further ahead.
+         */
+        private int chunkSize = 10_000;
+        private DataSize bufferSize = DataSize.ofKilobytes(64);
+
+        public void setChunkSize(int chunkSize) {
+            if (chunkSize < 1) {
+                throw new IllegalArgumentException("Chunk size must be positive: " + chunkSize);
+            }
+            this.chunkSize = chunkSize;
+        }
+    }
+
+    @Data
+    public static class Matchmaking {
+        /**
+         * Whether free men are matched from memory by {@code MatchmakingEngine}.
+         */
+        private boolean enabled = false;
+        private int stripes = 16;
+        private int maxBatchSize = 64;
+        /**
+         * How long a batch of matched pairs waits for more pairs after the first one.
+         */
+        private Duration window = Duration.ofMillis(1);
+        /**
+         * How many times a request is matched while its pairs fail to commit.
+         */
+        private int maxAttempts = 3;
+        private int warmUpPageSize = 10_000;
+    }
+
+    @Data
+    public static class WriteBehind {
+        /**
+         * Whether renames outside of transactions are buffered and written in batches by {@code WriteBehindRenamer}.
+         * Renames are acknowledged before they are written, so pending ones are lost if the node crashes.
+         */
+        private boolean enabled = false;
+        /**
+         * How many men may have pending renames, a rename of one more man flushes the buffer first.
+         */
+        private int maxPending = 10_000;
+        private int maxBatchSize = 500;
+        private Duration flushInterval = Duration.ofMillis(50);
+    }
+
+    @Data
+    public static class GroupCommit {
+        /**
+         * Whether creates, and updates by the {@code CONDITIONAL} strategy, outside of transactions
+         * share commits by {@code GroupCommitExecutor}. Updates by other strategies aren't grouped,
+         * they lock or read rows by JPA, which can't join the plain JDBC transaction of a group.
+         */
+        private boolean enabled = false;
+        private int maxBatchSize = 64;
+        /**
+         * How long a group waits for more writes after the first one.
+         */
+        private Duration window = Duration.ofMillis(2);
+        /**
+         * How long a grouped write waits for a row lock before its caller runs it in its own transaction.
+         */
+        private Duration lockTimeout = Duration.ofMillis(20);
+        /**
+         * How long a grouped write waits for the commit of its group before it fails.
+         */
+        private Duration timeout = Duration.ofSeconds(5);
+    }
+
+    @Data
+    public static class Outbox {
+        /**
+         * Whether changes are appended to the {@code man_outbox} table and relayed to the sink.
+         */
+        private boolean enabled = false;
+        private int batchSize = 1000;
+        /**
+         * How long the relay waits while the outbox has no full batch.
+         */
+        private Duration pollInterval = Duration.ofMillis(100);
+        /**
+         * Used unless there is a {@code ManEventSink} bean.
+         */
+        private SinkType sink = SinkType.APPLICATION_EVENT;
+        private Path file = Path.of("man-events.tsv");
+
+        public enum SinkType {
+            APPLICATION_EVENT,
+            FILE
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package dev.alexengrig.tx.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.alexengrig.tx.cache.BoundedManCache;
+import dev.alexengrig.tx.cache.ManCache;
+import dev.alexengrig.tx.cache.ManInvalidationBus;
+import dev.alexengrig.tx.cache.PostgresManInvalidationBus;
+import dev.alexengrig.tx.metrics.ManCacheMetrics;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.metrics.MicrometerManMetrics;
+import dev.alexengrig.tx.metrics.StatementCounter;
+import dev.alexengrig.tx.metrics.StatementCountingJdbcTemplate;
+import dev.alexengrig.tx.outbox.ApplicationEventManEventSink;
+import dev.alexengrig.tx.outbox.FileManEventSink;
+import dev.alexengrig.tx.outbox.ManEventSink;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.outbox.ManOutboxRelay;
+import dev.alexengrig.tx.repository.ManOutboxRepository;
+import dev.alexengrig.tx.repository.ManRepository;
+import dev.alexengrig.tx.retry.Retrier;
+import dev.alexengrig.tx.retry.RetryBudget;
+import dev.alexengrig.tx.service.BatchingManLoader;
+import dev.alexengrig.tx.service.CachingManService;
+import dev.alexengrig.tx.service.DirectManLoader;
+import dev.alexengrig.tx.service.GroupCommitExecutor;
+import dev.alexengrig.tx.service.ManLoader;
+import dev.alexengrig.tx.service.ManReader;
+import dev.alexengrig.tx.service.ManService;
+import dev.alexengrig.tx.service.MatchmakingEngine;
+import dev.alexengrig.tx.service.SimpleManService;
+import dev.alexengrig.tx.service.WriteBehindRenamer;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.hibernate.cfg.AvailableSettings;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnMissingBean;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.autoconfigure.jdbc.JdbcProperties;
+import org.springframework.boot.autoconfigure.orm.jpa.HibernatePropertiesCustomizer;
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+
+@Configuration
+@EnableConfigurationProperties(ManProperties.class)
+public class ManServiceConfiguration {
+    @Bean
+    public Retrier manRetrier(ManProperties properties) {
+        ManProperties.Retry retry = properties.getRetry();
+        return new Retrier(retry.getMaxAttempts(), retry.getInitialBackoff(), retry.getMaxBackoff(),
+                new RetryBudget(retry.getBudgetRatio(), retry.getBudgetMaxTokens()));
+    }
+
+    /**
+     * Records metrics to a Micrometer registry if there is one, otherwise does nothing.
+     */
+    @Bean
+    public ManMetrics manMetrics(ObjectProvider<MeterRegistry> meterRegistry) {
+        MeterRegistry registry = meterRegistry.getIfAvailable();
+        return registry != null ? new MicrometerManMetrics(registry) : ManMetrics.NOOP;
+    }
+
+    @Bean
+    public StatementCounter statementCounter() {
+        return new StatementCounter();
+    }
+
+    @Bean
+    public HibernatePropertiesCustomizer statementCounterCustomizer(StatementCounter statementCounter) {
+        return properties -> properties.put(AvailableSettings.STATEMENT_INSPECTOR, statementCounter);
+    }
+
+    /**
+     * Replaces the auto-configured {@link JdbcTemplate}, so its statements are counted like ones of Hibernate.
+     */
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource, JdbcProperties jdbcProperties,
+                                     StatementCounter statementCounter) {
+        JdbcTemplate jdbcTemplate = new StatementCountingJdbcTemplate(dataSource, statementCounter);
+        JdbcProperties.Template template = jdbcProperties.getTemplate();
+        jdbcTemplate.setFetchSize(template.getFetchSize());
+        jdbcTemplate.setMaxRows(template.getMaxRows());
+        if (template.getQueryTimeout() != null) {
+            jdbcTemplate.setQueryTimeout((int) template.getQueryTimeout().getSeconds());
+        }
+        return jdbcTemplate;
+    }
+
+    @Bean
+    public ManLoader manLoader(ManProperties properties, ManReader reader, ManRepository repository) {
+        ManProperties.Loader loader = properties.getLoader();
+        DirectManLoader directLoader = new DirectManLoader(reader);
+        if (!loader.isBatching()) {
+            return directLoader;
+        }
+        return new BatchingManLoader(repository, directLoader,
+                loader.getMaxBatchSize(), loader.getWindow(), loader.getThreads(), loader.getTimeout());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tx.man.cache", name = "enabled", havingValue = "true")
+    public ManCache manCache(ManProperties properties, ObjectProvider<MeterRegistry> meterRegistry) {
+        ManProperties.Cache cache = properties.getCache();
+        BoundedManCache manCache = new BoundedManCache(cache.getMaximumSize(), cache.getTimeToLive());
+        meterRegistry.ifAvailable(new ManCacheMetrics(manCache)::bindTo);
+        return manCache;
+    }
+
+    @Bean
+    @Primary
+    @ConditionalOnProperty(prefix = "tx.man.cache", name = "enabled", havingValue = "true")
+    public ManService cachingManService(SimpleManService simpleManService, ManCache manCache,
+                                        ObjectProvider<ManInvalidationBus> invalidationBus) {
+        return new CachingManService(simpleManService, manCache,
+                invalidationBus.getIfAvailable(() -> ManInvalidationBus.NOOP));
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tx.man.cache.invalidation", name = "enabled", havingValue = "true")
+    public ManInvalidationBus manInvalidationBus(ManProperties properties, DataSource dataSource,
+                                                 DataSourceProperties dataSourceProperties, ManCache manCache) {
+        ManProperties.Cache.Invalidation invalidation = properties.getCache().getInvalidation();
+        // LISTEN holds its connection forever, so it is opened by the driver instead of taken from the pool
+        DriverManagerDataSource listenerDataSource = new DriverManagerDataSource();
+        if (dataSource instanceof HikariDataSource) {
+            // Connections of the pool, with driver properties like SSL and timeouts
+            HikariDataSource pool = (HikariDataSource) dataSource;
+            listenerDataSource.setUrl(pool.getJdbcUrl());
+            listenerDataSource.setUsername(pool.getUsername());
+            listenerDataSource.setPassword(pool.getPassword());
+            listenerDataSource.setConnectionProperties(pool.getDataSourceProperties());
+        } else {
+            listenerDataSource.setUrl(dataSourceProperties.determineUrl());
+            listenerDataSource.setUsername(dataSourceProperties.determineUsername());
+            listenerDataSource.setPassword(dataSourceProperties.determinePassword());
+        }
+        return new PostgresManInvalidationBus(dataSource, listenerDataSource, manCache, invalidation.getChannel(),
+                invalidation.getMaxBatchSize(), invalidation.getWindow(), invalidation.getReconnectBackoff());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tx.man.matchmaking", name = "enabled", havingValue = "true")
+    public MatchmakingEngine matchmakingEngine(ManProperties properties, ManService manService,
+                                               ManRepository repository) {
+        ManProperties.Matchmaking matchmaking = properties.getMatchmaking();
+        return new MatchmakingEngine(manService, repository, matchmaking.getStripes(),
+                matchmaking.getMaxBatchSize(), matchmaking.getWindow(), matchmaking.getMaxAttempts(),
+                matchmaking.getWarmUpPageSize());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tx.man.write-behind", name = "enabled", havingValue = "true")
+    public WriteBehindRenamer writeBehindRenamer(ManProperties properties, ManRepository repository, ManLoader loader,
+                                                 ManOutbox outbox, ObjectProvider<ManInvalidationBus> invalidationBus,
+                                                 PlatformTransactionManager transactionManager) {
+        ManProperties.WriteBehind writeBehind = properties.getWriteBehind();
+        return new WriteBehindRenamer(repository, loader, outbox,
+                invalidationBus.getIfAvailable(() -> ManInvalidationBus.NOOP), transactionManager,
+                writeBehind.getMaxPending(), writeBehind.getMaxBatchSize(), writeBehind.getFlushInterval());
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tx.man.group-commit", name = "enabled", havingValue = "true")
+    public GroupCommitExecutor groupCommitExecutor(ManProperties properties, DataSource dataSource,
+                                                   JdbcTemplate jdbcTemplate, StatementCounter statementCounter) {
+        ManProperties.GroupCommit groupCommit = properties.getGroupCommit();
+        // Groups are plain JDBC, so savepoints are supported
+        return new GroupCommitExecutor(new DataSourceTransactionManager(dataSource), jdbcTemplate, statementCounter,
+                groupCommit.getMaxBatchSize(), groupCommit.getWindow(), groupCommit.getLockTimeout(),
+                groupCommit.getTimeout());
+    }
+
+    @Bean
+    @ConditionalOnMissingBean
+    @ConditionalOnProperty(prefix = "tx.man.outbox", name = "enabled", havingValue = "true")
+    public ManEventSink manEventSink(ManProperties properties, ApplicationEventPublisher publisher) {
+        ManProperties.Outbox outbox = properties.getOutbox();
+        switch (outbox.getSink()) {
+            case APPLICATION_EVENT:
+                return new ApplicationEventManEventSink(publisher);
+            case FILE:
+                return new FileManEventSink(outbox.getFile());
+            default:
+                throw new IllegalArgumentException("Unknown sink: " + outbox.getSink());
+        }
+    }
+
+    @Bean
+    @ConditionalOnProperty(prefix = "tx.man.outbox", name = "enabled", havingValue = "true")
+    public ManOutboxRelay manOutboxRelay(ManProperties properties, ManOutboxRepository repository, ManEventSink sink,
+                                         TransactionTemplate txTemplate) {
+        ManProperties.Outbox outbox = properties.getOutbox();
+        return new ManOutboxRelay(repository, sink, txTemplate, outbox.getBatchSize(), outbox.getPollInterval());
+    }
+}
@@ -0,0 +1,16 @@
+package dev.alexengrig.tx.domain;
+
+import lombok.Value;
+
+import java.time.Duration;
+
+@Value
+public class BulkLoadReport {
+    long rows;
+    Duration elapsed;
+
+    public double getRowsPerSecond() {
+        long nanos = elapsed.toNanos();
+        return nanos > 0 ? rows * 1e9 / nanos : 0;
+    }
+}
@@ -0,0 +1,9 @@
+package dev.alexengrig.tx.domain;
+
+import lombok.Value;
+
+@Value
+public class LinkResult {
+    ManPair pair;
+    LinkStatus status;
+}
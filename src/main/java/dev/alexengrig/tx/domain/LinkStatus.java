@@ -0,0 +1,14 @@
+package dev.alexengrig.tx.domain;
+
+public enum LinkStatus {
+    LINKED,
+    /**
+     * One of men already has a partner or is linked by a previous pair of the batch.
+     */
+    NOT_FREE,
+    NOT_FOUND,
+    /**
+     * Both ids of the pair are of the same man, who can't be linked with himself.
+     */
+    SAME_MAN
+}
@@ -1,12 +1,10 @@
 package dev.alexengrig.tx.domain;
 
-import lombok.AllArgsConstructor;
-import lombok.Data;
+import lombok.Value;
 
-@Data
-@AllArgsConstructor
+@Value
 public class Man {
-    private Long id;
-    private String name;
-    private Long partnerId;
+    Long id;
+    String name;
+    Long partnerId;
 }
@@ -0,0 +1,30 @@
+package dev.alexengrig.tx.domain;
+
+import lombok.Value;
+
+import java.time.Instant;
+
+/**
+ * Change of a man as of its transaction, events are ordered by id.
+ */
+@Value
+public class ManEvent {
+    Long id;
+    ManEventType type;
+    Long manId;
+    String name;
+    Long partnerId;
+    Instant createdAt;
+
+    public static ManEvent created(Man man) {
+        return new ManEvent(null, ManEventType.CREATED, man.getId(), man.getName(), man.getPartnerId(), null);
+    }
+
+    public static ManEvent renamed(Man man) {
+        return new ManEvent(null, ManEventType.RENAMED, man.getId(), man.getName(), man.getPartnerId(), null);
+    }
+
+    public static ManEvent linked(Long manId, Long partnerId) {
+        return new ManEvent(null, ManEventType.LINKED, manId, null, partnerId, null);
+    }
+}
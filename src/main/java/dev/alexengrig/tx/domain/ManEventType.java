@@ -0,0 +1,10 @@
+package dev.alexengrig.tx.domain;
+
+public enum ManEventType {
+    CREATED,
+    RENAMED,
+    /**
+     * The man got a partner, the partner gets his own event.
+     */
+    LINKED
+}
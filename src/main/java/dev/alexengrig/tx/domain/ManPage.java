@@ -0,0 +1,14 @@
+package dev.alexengrig.tx.domain;
+
+import lombok.Value;
+
+import java.util.List;
+
+@Value
+public class ManPage {
+    List<Man> men;
+    /**
+     * Opaque token of the next page, {@code null} for the last page.
+     */
+    String nextPageToken;
+}
@@ -0,0 +1,9 @@
+package dev.alexengrig.tx.domain;
+
+import lombok.Value;
+
+@Value
+public class ManPair {
+    Long manId;
+    Long anotherManId;
+}
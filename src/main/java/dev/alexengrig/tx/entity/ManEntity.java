@@ -3,15 +3,17 @@ package dev.alexengrig.tx.entity;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 import lombok.NoArgsConstructor;
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+import org.hibernate.id.enhanced.SequenceStyleGenerator;
 
 import javax.persistence.Column;
 import javax.persistence.Entity;
 import javax.persistence.GeneratedValue;
-import javax.persistence.GenerationType;
 import javax.persistence.Id;
 import javax.persistence.OneToOne;
-import javax.persistence.SequenceGenerator;
 import javax.persistence.Table;
+import javax.persistence.Version;
 
 @Data
 @Entity(name = "Man")
@@ -19,14 +21,26 @@ import javax.persistence.Table;
 @NoArgsConstructor
 @AllArgsConstructor
 public class ManEntity {
+    /**
+     * Must be equal to {@code INCREMENT BY} of {@code man_id_seq}.
+     */
+    public static final int ID_ALLOCATION_SIZE = 50;
+
     @Id
-    @GeneratedValue(generator = "manIdSeqGen", strategy = GenerationType.SEQUENCE)
-    @SequenceGenerator(name = "manIdSeqGen", sequenceName = "man_id_seq", allocationSize = 1)
+    @GeneratedValue(generator = "manIdSeqGen")
+    @GenericGenerator(name = "manIdSeqGen", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+            @Parameter(name = SequenceStyleGenerator.SEQUENCE_PARAM, value = "man_id_seq"),
+            @Parameter(name = SequenceStyleGenerator.INCREMENT_PARAM, value = "" + ID_ALLOCATION_SIZE),
+            @Parameter(name = SequenceStyleGenerator.OPT_PARAM, value = "pooled-lo")
+    })
     private Long id;
     @OneToOne
     private ManEntity partner;
     @Column(name = "name", nullable = false)
     private String name;
+    @Version
+    @Column(name = "version", nullable = false)
+    private Long version;
 
     public ManEntity(String name) {
         this.name = name;
@@ -0,0 +1,40 @@
+package dev.alexengrig.tx.metrics;
+
+import dev.alexengrig.tx.cache.ManCache;
+import dev.alexengrig.tx.cache.ManCacheStats;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.FunctionTimer;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import lombok.RequiredArgsConstructor;
+
+import java.util.concurrent.TimeUnit;
+
+@RequiredArgsConstructor
+public class ManCacheMetrics implements MeterBinder {
+    private final ManCache cache;
+
+    @Override
+    public void bindTo(MeterRegistry registry) {
+        FunctionCounter.builder("man.cache.gets", cache, cache -> cache.stats().getHitCount())
+                .description("Number of cache reads by result")
+                .tag("result", "hit")
+                .register(registry);
+        FunctionCounter.builder("man.cache.gets", cache, cache -> cache.stats().getMissCount())
+                .description("Number of cache reads by result")
+                .tag("result", "miss")
+                .register(registry);
+        FunctionCounter.builder("man.cache.evictions", cache, cache -> cache.stats().getEvictionCount())
+                .description("Number of men evicted by size or time to live")
+                .register(registry);
+        FunctionTimer.builder("man.cache.loads", cache,
+                        cache -> cache.stats().getLoadCount(),
+                        cache -> cache.stats().getTotalLoadTimeNanos(), TimeUnit.NANOSECONDS)
+                .description("Time of loading men missed by the cache")
+                .register(registry);
+        Gauge.builder("man.cache.size", cache, cache -> cache.stats().getSize())
+                .description("Number of cached men")
+                .register(registry);
+    }
+}
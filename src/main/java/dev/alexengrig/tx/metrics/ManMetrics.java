@@ -0,0 +1,48 @@
+package dev.alexengrig.tx.metrics;
+
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.exception.SameManNameException;
+import dev.alexengrig.tx.retry.SqlStates;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
+
+import java.util.function.Supplier;
+
+public interface ManMetrics {
+    ManMetrics NOOP = new NoopManMetrics();
+
+    // False if nothing is recorded, so callers may skip measuring
+    boolean isEnabled();
+
+    // Lock waits and commits of the operation on the current thread are tagged by its outcome
+    void startOperation();
+
+    void recordOperation(String operation, String outcome, long nanos, long statements);
+
+    <T> T recordLockWait(String operation, Supplier<T> lock);
+
+    void recordCommit(String operation);
+
+    void recordRetry(String operation, RuntimeException failure);
+
+    static String outcomeOf(Throwable exception) {
+        if (exception == null) {
+            return "ok";
+        } else if (exception instanceof ManNotFoundException) {
+            return "not-found";
+        } else if (exception instanceof NotFreeManException) {
+            return "not-free";
+        } else if (exception instanceof SameManNameException) {
+            return "same-name";
+        } else if (SqlStates.SERIALIZATION_FAILURE.equals(SqlStates.of(exception))) {
+            return "serialization-failure";
+        } else if (exception instanceof PessimisticLockingFailureException) {
+            return "deadlock";
+        } else if (exception instanceof OptimisticLockingFailureException) {
+            return "conflict";
+        } else {
+            return "error";
+        }
+    }
+}
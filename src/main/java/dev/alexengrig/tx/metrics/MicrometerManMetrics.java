@@ -0,0 +1,177 @@
+package dev.alexengrig.tx.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+@RequiredArgsConstructor
+public class MicrometerManMetrics implements ManMetrics {
+    private final MeterRegistry registry;
+    // Registered once per combination of tags, so a call doesn't build and look one up
+    private final ConcurrentMap<List<String>, Timer> operationTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, DistributionSummary> statementSummaries = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, Timer> lockWaitTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, Timer> commitTimers = new ConcurrentHashMap<>();
+    private final ConcurrentMap<List<String>, Counter> retryCounters = new ConcurrentHashMap<>();
+    // Lock waits and commits of the running attempt of the operation of a thread, until its outcome is known
+    private final ThreadLocal<Attempt> attempts = new ThreadLocal<>();
+
+    @Override
+    public boolean isEnabled() {
+        return true;
+    }
+
+    @Override
+    public void startOperation() {
+        attempts.set(new Attempt(attempts.get()));
+    }
+
+    @Override
+    public void recordOperation(String operation, String outcome, long nanos, long statements) {
+        Attempt attempt = attempts.get();
+        if (attempt != null) {
+            attempt.end(outcome);
+            // An operation within another one, like a read by a write, restores the outer attempt
+            if (attempt.outer != null) {
+                attempts.set(attempt.outer);
+            } else {
+                attempts.remove();
+            }
+        }
+        List<String> tags = List.of(operation, outcome);
+        operationTimers.computeIfAbsent(tags, key -> Timer.builder("man.operation")
+                        .description("Time of ManService operation including transaction and retries")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(nanos, TimeUnit.NANOSECONDS);
+        statementSummaries.computeIfAbsent(tags, key -> DistributionSummary.builder("man.statements")
+                        .description("Number of SQL statements of ManService operation")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .record(statements);
+    }
+
+    @Override
+    public <T> T recordLockWait(String operation, Supplier<T> lock) {
+        long start = System.nanoTime();
+        RuntimeException failure = null;
+        try {
+            return lock.get();
+        } catch (RuntimeException e) {
+            failure = e;
+            throw e;
+        } finally {
+            long nanos = System.nanoTime() - start;
+            Attempt attempt = attempts.get();
+            if (attempt != null) {
+                attempt.samples.add(new Sample(false, operation, nanos));
+            } else {
+                // Outside of an operation, like on a thread of a batch
+                lockWaitTimer(operation, ManMetrics.outcomeOf(failure)).record(nanos, TimeUnit.NANOSECONDS);
+            }
+        }
+    }
+
+    @Override
+    public void recordCommit(String operation) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        Attempt attempt = attempts.get();
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            private long start;
+
+            @Override
+            public void beforeCompletion() {
+                // The last callback before flush and commit, or rollback
+                start = System.nanoTime();
+            }
+
+            @Override
+            public void afterCompletion(int status) {
+                long nanos = System.nanoTime() - start;
+                if (attempt != null && !attempt.ended) {
+                    attempt.samples.add(new Sample(true, operation, nanos));
+                } else {
+                    // A transaction of a caller or of a group, which ends after the operation
+                    commitTimer(operation, status == STATUS_COMMITTED ? "ok" : "rollback")
+                            .record(nanos, TimeUnit.NANOSECONDS);
+                }
+            }
+        });
+    }
+
+    @Override
+    public void recordRetry(String operation, RuntimeException failure) {
+        String outcome = ManMetrics.outcomeOf(failure);
+        Attempt attempt = attempts.get();
+        if (attempt != null) {
+            // The failed attempt ends, the next one starts
+            attempt.end(outcome);
+            attempts.set(new Attempt(attempt.outer));
+        }
+        retryCounters.computeIfAbsent(List.of(operation, outcome), key -> Counter.builder("man.retry")
+                        .description("Number of retries of ManService operation by the failure")
+                        .tag("operation", operation)
+                        .tag("outcome", outcome)
+                        .register(registry))
+                .increment();
+    }
+
+    private Timer lockWaitTimer(String operation, String outcome) {
+        return lockWaitTimers.computeIfAbsent(List.of(operation, outcome), key -> Timer.builder("man.lock.wait")
+                .description("Time of acquiring row locks")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    private Timer commitTimer(String operation, String outcome) {
+        return commitTimers.computeIfAbsent(List.of(operation, outcome), key -> Timer.builder("man.commit")
+                .description("Time of flush and commit, or rollback, of ManService transaction")
+                .tag("operation", operation)
+                .tag("outcome", outcome)
+                .register(registry));
+    }
+
+    private class Attempt {
+        final Attempt outer;
+        final List<Sample> samples = new ArrayList<>();
+        boolean ended;
+
+        Attempt(Attempt outer) {
+            this.outer = outer;
+        }
+
+        void end(String outcome) {
+            ended = true;
+            for (Sample sample : samples) {
+                Timer timer = sample.commit
+                        ? commitTimer(sample.operation, outcome)
+                        : lockWaitTimer(sample.operation, outcome);
+                timer.record(sample.nanos, TimeUnit.NANOSECONDS);
+            }
+            samples.clear();
+        }
+    }
+
+    @RequiredArgsConstructor
+    private static class Sample {
+        final boolean commit;
+        final String operation;
+        final long nanos;
+    }
+}
@@ -0,0 +1,31 @@
+package dev.alexengrig.tx.metrics;
+
+import java.util.function.Supplier;
+
+class NoopManMetrics implements ManMetrics {
+    @Override
+    public boolean isEnabled() {
+        return false;
+    }
+
+    @Override
+    public void startOperation() {
+    }
+
+    @Override
+    public void recordOperation(String operation, String outcome, long nanos, long statements) {
+    }
+
+    @Override
+    public <T> T recordLockWait(String operation, Supplier<T> lock) {
+        return lock.get();
+    }
+
+    @Override
+    public void recordCommit(String operation) {
+    }
+
+    @Override
+    public void recordRetry(String operation, RuntimeException failure) {
+    }
+}
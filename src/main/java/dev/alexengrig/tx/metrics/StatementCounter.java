@@ -0,0 +1,26 @@
+package dev.alexengrig.tx.metrics;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+public class StatementCounter implements StatementInspector {
+    private final ThreadLocal<long[]> counter = ThreadLocal.withInitial(() -> new long[1]);
+
+    @Override
+    public String inspect(String sql) {
+        increment();
+        return sql;
+    }
+
+    public void increment() {
+        counter.get()[0]++;
+    }
+
+    public long get() {
+        return counter.get()[0];
+    }
+
+    // Statements run for the current thread by another one
+    public void add(long statements) {
+        counter.get()[0] += statements;
+    }
+}
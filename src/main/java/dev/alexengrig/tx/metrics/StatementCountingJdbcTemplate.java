@@ -0,0 +1,23 @@
+package dev.alexengrig.tx.metrics;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+// A batch is one statement, statements of a ConnectionCallback aren't counted
+public class StatementCountingJdbcTemplate extends JdbcTemplate {
+    private final StatementCounter counter;
+
+    public StatementCountingJdbcTemplate(DataSource dataSource, StatementCounter counter) {
+        super(dataSource);
+        this.counter = counter;
+    }
+
+    @Override
+    protected void applyStatementSettings(Statement stmt) throws SQLException {
+        counter.increment();
+        super.applyStatementSettings(stmt);
+    }
+}
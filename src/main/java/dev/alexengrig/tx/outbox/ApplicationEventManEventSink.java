@@ -0,0 +1,19 @@
+package dev.alexengrig.tx.outbox;
+
+import dev.alexengrig.tx.domain.ManEvent;
+import lombok.RequiredArgsConstructor;
+import org.springframework.context.ApplicationEventPublisher;
+
+import java.util.List;
+
+@RequiredArgsConstructor
+public class ApplicationEventManEventSink implements ManEventSink {
+    private final ApplicationEventPublisher publisher;
+
+    @Override
+    public void publish(List<ManEvent> events) {
+        for (ManEvent event : events) {
+            publisher.publishEvent(event);
+        }
+    }
+}
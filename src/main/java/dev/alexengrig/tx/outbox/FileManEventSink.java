@@ -0,0 +1,48 @@
+package dev.alexengrig.tx.outbox;
+
+import dev.alexengrig.tx.domain.ManEvent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+
+// A batch is forced to the device before it is deleted from the outbox
+public class FileManEventSink implements ManEventSink {
+    private final Path file;
+
+    public FileManEventSink(Path file) {
+        this.file = file;
+    }
+
+    @Override
+    public synchronized void publish(List<ManEvent> events) {
+        StringBuilder lines = new StringBuilder();
+        for (ManEvent event : events) {
+            lines.append(event.getId()).append('\t')
+                    .append(event.getType()).append('\t')
+                    .append(event.getManId()).append('\t')
+                    .append(event.getPartnerId() != null ? event.getPartnerId().toString() : "").append('\t')
+                    .append(event.getCreatedAt()).append('\t')
+                    .append(event.getName() != null ? escape(event.getName()) : "").append('\n');
+        }
+        try (FileChannel channel = FileChannel.open(file,
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+            ByteBuffer buffer = ByteBuffer.wrap(lines.toString().getBytes(StandardCharsets.UTF_8));
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append " + events.size() + " events to " + file, e);
+        }
+    }
+
+    private static String escape(String name) {
+        return name.replace("\\", "\\\\").replace("\t", "\\t").replace("\n", "\\n");
+    }
+}
@@ -0,0 +1,10 @@
+package dev.alexengrig.tx.outbox;
+
+import dev.alexengrig.tx.domain.ManEvent;
+
+import java.util.List;
+
+public interface ManEventSink {
+    // Events are deleted only if this returns, so consumers must deduplicate by event id
+    void publish(List<ManEvent> events);
+}
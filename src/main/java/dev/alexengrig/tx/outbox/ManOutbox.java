@@ -0,0 +1,91 @@
+package dev.alexengrig.tx.outbox;
+
+import dev.alexengrig.tx.config.ManProperties;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManEvent;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.repository.ManOutboxRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+// Ids are taken by the last statement of the transaction, while it holds its men, so they follow commit order
+@Component
+@RequiredArgsConstructor
+public class ManOutbox {
+    private final ManOutboxRepository repository;
+    private final ManProperties properties;
+
+    public void created(Collection<Man> men) {
+        List<ManEvent> events = new ArrayList<>(men.size());
+        for (Man man : men) {
+            events.add(ManEvent.created(man));
+        }
+        append(events);
+    }
+
+    public void renamed(Collection<Man> men) {
+        List<ManEvent> events = new ArrayList<>(men.size());
+        for (Man man : men) {
+            events.add(ManEvent.renamed(man));
+        }
+        append(events);
+    }
+
+    public void linked(Collection<ManPair> pairs) {
+        List<ManEvent> events = new ArrayList<>(pairs.size() * 2);
+        for (ManPair pair : pairs) {
+            events.add(ManEvent.linked(pair.getManId(), pair.getAnotherManId()));
+            events.add(ManEvent.linked(pair.getAnotherManId(), pair.getManId()));
+        }
+        append(events);
+    }
+
+    private void append(List<ManEvent> events) {
+        if (!properties.getOutbox().isEnabled() || events.isEmpty()) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            throw new IllegalStateException("Events must be appended within a transaction");
+        }
+        @SuppressWarnings("unchecked")
+        List<ManEvent> buffer = (List<ManEvent>) TransactionSynchronizationManager.getResource(this);
+        if (buffer == null) {
+            buffer = new ArrayList<>();
+            TransactionSynchronizationManager.bindResource(this, buffer);
+            TransactionSynchronizationManager.registerSynchronization(new BufferSynchronization(buffer));
+        }
+        buffer.addAll(events);
+    }
+
+    @RequiredArgsConstructor
+    private class BufferSynchronization implements TransactionSynchronization {
+        private final List<ManEvent> buffer;
+
+        @Override
+        public void suspend() {
+            // A transaction within this one has a buffer of its own
+            TransactionSynchronizationManager.unbindResource(ManOutbox.this);
+        }
+
+        @Override
+        public void resume() {
+            TransactionSynchronizationManager.bindResource(ManOutbox.this, buffer);
+        }
+
+        @Override
+        public void beforeCommit(boolean readOnly) {
+            repository.append(buffer);
+        }
+
+        @Override
+        public void afterCompletion(int status) {
+            TransactionSynchronizationManager.unbindResourceIfPossible(ManOutbox.this);
+        }
+    }
+}
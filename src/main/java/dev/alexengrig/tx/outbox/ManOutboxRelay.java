@@ -0,0 +1,82 @@
+package dev.alexengrig.tx.outbox;
+
+import dev.alexengrig.tx.domain.ManEvent;
+import dev.alexengrig.tx.repository.ManOutboxRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+// Locked events are skipped by other relays, so only a single relay publishes all events in order
+@Slf4j
+public class ManOutboxRelay implements DisposableBean {
+    private final ManOutboxRepository repository;
+    private final ManEventSink sink;
+    private final TransactionTemplate txTemplate;
+    private final int batchSize;
+    private final long pollIntervalMillis;
+    private final Thread relay;
+    private volatile boolean running = true;
+
+    public ManOutboxRelay(ManOutboxRepository repository, ManEventSink sink, TransactionTemplate txTemplate,
+                          int batchSize, Duration pollInterval) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Batch size must be positive: " + batchSize);
+        }
+        this.repository = repository;
+        this.sink = sink;
+        this.txTemplate = txTemplate;
+        this.batchSize = batchSize;
+        this.pollIntervalMillis = pollInterval.toMillis();
+        this.relay = new Thread(this::relay, "man-outbox-relay");
+        this.relay.setDaemon(true);
+        this.relay.start();
+    }
+
+    public int relayBatch() {
+        Integer relayed = txTemplate.execute(status -> {
+            List<ManEvent> events = repository.lockOldest(batchSize);
+            if (events.isEmpty()) {
+                return 0;
+            }
+            sink.publish(events);
+            List<Long> ids = new ArrayList<>(events.size());
+            for (ManEvent event : events) {
+                ids.add(event.getId());
+            }
+            repository.delete(ids);
+            log.trace("Relayed {} events", events.size());
+            return events.size();
+        });
+        return relayed != null ? relayed : 0;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        relay.interrupt();
+        relay.join();
+    }
+
+    private void relay() {
+        while (running) {
+            int relayed;
+            try {
+                relayed = relayBatch();
+            } catch (RuntimeException e) {
+                log.warn("Failed to relay events, retrying later", e);
+                relayed = 0;
+            }
+            if (relayed < batchSize) {
+                try {
+                    Thread.sleep(pollIntervalMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+}
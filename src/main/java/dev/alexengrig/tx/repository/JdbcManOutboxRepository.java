@@ -0,0 +1,67 @@
+package dev.alexengrig.tx.repository;
+
+import dev.alexengrig.tx.domain.ManEvent;
+import dev.alexengrig.tx.domain.ManEventType;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.stereotype.Repository;
+
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+@RequiredArgsConstructor
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+public class JdbcManOutboxRepository implements ManOutboxRepository {
+    private static final RowMapper<ManEvent> EVENT_ROW_MAPPER = (rs, rowNum) -> {
+        long id = rs.getLong(1);
+        ManEventType type = ManEventType.valueOf(rs.getString(2));
+        long manId = rs.getLong(3);
+        String name = rs.getString(4);
+        long partnerId = rs.getLong(5);
+        Long nullablePartnerId = rs.wasNull() ? null : partnerId;
+        return new ManEvent(id, type, manId, name, nullablePartnerId, rs.getTimestamp(6).toInstant());
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public void append(Collection<ManEvent> events) {
+        String[] types = new String[events.size()];
+        Long[] manIds = new Long[types.length];
+        String[] names = new String[types.length];
+        Long[] partnerIds = new Long[types.length];
+        int i = 0;
+        for (ManEvent event : events) {
+            types[i] = event.getType().name();
+            manIds[i] = event.getManId();
+            names[i] = event.getName();
+            partnerIds[i++] = event.getPartnerId();
+        }
+        jdbcTemplate.update("INSERT INTO man_outbox (type, man_id, name, partner_id) " +
+                        // Ids follow the order of events, and the rows of their men are still locked
+                        "SELECT type, man_id, name, partner_id " +
+                        "FROM unnest(?, ?, ?, ?) WITH ORDINALITY AS e(type, man_id, name, partner_id, n) " +
+                        "ORDER BY n",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("text", types));
+                    ps.setArray(2, ps.getConnection().createArrayOf("bigint", manIds));
+                    ps.setArray(3, ps.getConnection().createArrayOf("text", names));
+                    ps.setArray(4, ps.getConnection().createArrayOf("bigint", partnerIds));
+                });
+    }
+
+    @Override
+    public List<ManEvent> lockOldest(int limit) {
+        return jdbcTemplate.query("SELECT id, type, man_id, name, partner_id, created_at FROM man_outbox " +
+                "ORDER BY id LIMIT ? FOR UPDATE SKIP LOCKED", EVENT_ROW_MAPPER, limit);
+    }
+
+    @Override
+    public int delete(Collection<Long> ids) {
+        Long[] idArray = ids.toArray(Long[]::new);
+        return jdbcTemplate.update("DELETE FROM man_outbox WHERE id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)));
+    }
+}
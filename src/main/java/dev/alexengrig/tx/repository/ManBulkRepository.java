@@ -0,0 +1,97 @@
+package dev.alexengrig.tx.repository;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Operations by plain SQL, every operation is one statement whatever the number of men.
+ */
+public interface ManBulkRepository {
+    /**
+     * Takes the next block of {@link dev.alexengrig.tx.entity.ManEntity#ID_ALLOCATION_SIZE} ids
+     * from the sequence, like JPA does, so its ids never collide with ids allocated by JPA.
+     *
+     * @return the first id of the block
+     */
+    long nextIdBlock();
+
+    /**
+     * Inserts the man with an id from a block of {@link #nextIdBlock()}.
+     */
+    Man insert(Long id, String name);
+
+    /**
+     * Reads found men without locks.
+     */
+    List<Man> findMen(Collection<Long> ids);
+
+    /**
+     * Reads men with ids greater than the given id in id order without locks.
+     *
+     * @param afterId {@code null} to read from the first man
+     */
+    List<Man> findPage(@Nullable Long afterId, int limit);
+
+    /**
+     * Reads ids of free men greater than the given id in id order without locks.
+     *
+     * @param afterId {@code null} to read from the first free man
+     */
+    List<Long> findFreeIds(@Nullable Long afterId, int limit);
+
+    /**
+     * Locks rows in id order.
+     *
+     * @return partner ids (nullable) by ids of found men in id order
+     */
+    Map<Long, Long> lockPartnerIds(Collection<Long> ids);
+
+    /**
+     * Locks rows in id order like {@link #lockPartnerIds(Collection)}, but fails if any row is locked already.
+     *
+     * @throws org.springframework.dao.CannotAcquireLockException if a row is locked by another transaction
+     */
+    Map<Long, Long> lockPartnerIdsNoWait(Collection<Long> ids);
+
+    /**
+     * Locks the free man with the least id, skipping men locked by other transactions.
+     *
+     * @return locked man, {@code null} if there is no unlocked free man
+     */
+    @Nullable
+    Man lockAnyFree(Long excludedManId);
+
+    /**
+     * Links men of every pair with each other, rows must be locked before.
+     *
+     * @return number of updated rows
+     */
+    int updatePartners(Collection<ManPair> pairs);
+
+    /**
+     * Links both men with each other if they are free, without locking them before.
+     *
+     * @return ids of updated men, the caller must roll back if they are not both men
+     */
+    List<Long> updatePartnersIfFree(Long manId, Long anotherManId);
+
+    /**
+     * Renames men whose names differ from the new ones, men that are not found are skipped.
+     *
+     * @return renamed men
+     */
+    List<Man> updateNames(Map<Long, String> namesByIds);
+
+    /**
+     * Renames the man if his name differs from the new one.
+     *
+     * @return renamed man, {@code null} if the man is not found or already has the name
+     */
+    @Nullable
+    Man updateNameIfDiffers(Long manId, String name);
+}
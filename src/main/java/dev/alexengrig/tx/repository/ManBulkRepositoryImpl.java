@@ -0,0 +1,164 @@
+package dev.alexengrig.tx.repository;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import lombok.RequiredArgsConstructor;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.lang.Nullable;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+@RequiredArgsConstructor
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+public class ManBulkRepositoryImpl implements ManBulkRepository {
+    private static final RowMapper<Man> MAN_ROW_MAPPER = (rs, rowNum) -> {
+        long id = rs.getLong(1);
+        String name = rs.getString(2);
+        long partnerId = rs.getLong(3);
+        return new Man(id, name, rs.wasNull() ? null : partnerId);
+    };
+
+    private final JdbcTemplate jdbcTemplate;
+
+    @Override
+    public long nextIdBlock() {
+        Long id = jdbcTemplate.queryForObject("SELECT nextval('man_id_seq')", Long.class);
+        return Objects.requireNonNull(id, "Next id block");
+    }
+
+    @Override
+    public Man insert(Long id, String name) {
+        return jdbcTemplate.queryForObject("INSERT INTO man (id, name) VALUES (?, ?) RETURNING id, name, partner_id",
+                MAN_ROW_MAPPER, id, name);
+    }
+
+    @Override
+    public List<Man> findMen(Collection<Long> ids) {
+        Long[] idArray = ids.toArray(Long[]::new);
+        return jdbcTemplate.query("SELECT id, name, partner_id FROM man WHERE id = ANY (?)",
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)),
+                MAN_ROW_MAPPER);
+    }
+
+    @Override
+    public List<Man> findPage(@Nullable Long afterId, int limit) {
+        if (afterId == null) {
+            return jdbcTemplate.query("SELECT id, name, partner_id FROM man ORDER BY id LIMIT ?",
+                    MAN_ROW_MAPPER, limit);
+        }
+        return jdbcTemplate.query("SELECT id, name, partner_id FROM man WHERE id > ? ORDER BY id LIMIT ?",
+                MAN_ROW_MAPPER, afterId, limit);
+    }
+
+    @Override
+    public List<Long> findFreeIds(@Nullable Long afterId, int limit) {
+        // By the partial index of free men
+        if (afterId == null) {
+            return jdbcTemplate.queryForList("SELECT id FROM man WHERE partner_id IS NULL ORDER BY id LIMIT ?",
+                    Long.class, limit);
+        }
+        return jdbcTemplate.queryForList("SELECT id FROM man WHERE partner_id IS NULL AND id > ? " +
+                "ORDER BY id LIMIT ?", Long.class, afterId, limit);
+    }
+
+    @Override
+    public Map<Long, Long> lockPartnerIds(Collection<Long> ids) {
+        return lockPartnerIds(ids, "FOR UPDATE");
+    }
+
+    @Override
+    public Map<Long, Long> lockPartnerIdsNoWait(Collection<Long> ids) {
+        return lockPartnerIds(ids, "FOR UPDATE NOWAIT");
+    }
+
+    @Override
+    @Nullable
+    public Man lockAnyFree(Long excludedManId) {
+        List<Man> men = jdbcTemplate.query("SELECT id, name, partner_id FROM man " +
+                        "WHERE partner_id IS NULL AND id <> ? " +
+                        // The oldest free man first, by the partial index of free men
+                        "ORDER BY id LIMIT 1 FOR UPDATE SKIP LOCKED",
+                MAN_ROW_MAPPER, excludedManId);
+        return men.isEmpty() ? null : men.get(0);
+    }
+
+    private Map<Long, Long> lockPartnerIds(Collection<Long> ids, String lockClause) {
+        Long[] idArray = ids.toArray(Long[]::new);
+        Map<Long, Long> partnerIds = new LinkedHashMap<>();
+        jdbcTemplate.query("SELECT id, partner_id FROM man WHERE id = ANY (?) ORDER BY id " + lockClause,
+                ps -> ps.setArray(1, ps.getConnection().createArrayOf("bigint", idArray)),
+                rs -> {
+                    long id = rs.getLong(1);
+                    long partnerId = rs.getLong(2);
+                    partnerIds.put(id, rs.wasNull() ? null : partnerId);
+                });
+        return partnerIds;
+    }
+
+    @Override
+    public int updatePartners(Collection<ManPair> pairs) {
+        Long[] ids = new Long[pairs.size() * 2];
+        Long[] partnerIds = new Long[ids.length];
+        int i = 0;
+        for (ManPair pair : pairs) {
+            ids[i] = pair.getManId();
+            partnerIds[i++] = pair.getAnotherManId();
+            ids[i] = pair.getAnotherManId();
+            partnerIds[i++] = pair.getManId();
+        }
+        return jdbcTemplate.update("UPDATE man " +
+                        "SET partner_id = p.partner_id, version = version + 1 " +
+                        "FROM unnest(?, ?) AS p(id, partner_id) " +
+                        "WHERE man.id = p.id",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+                    ps.setArray(2, ps.getConnection().createArrayOf("bigint", partnerIds));
+                });
+    }
+
+    @Override
+    public List<Long> updatePartnersIfFree(Long manId, Long anotherManId) {
+        return jdbcTemplate.queryForList("UPDATE man " +
+                        "SET partner_id = CASE id WHEN ? THEN ? ELSE ? END, version = version + 1 " +
+                        "WHERE id IN (?, ?) AND partner_id IS NULL " +
+                        // Partners must exist, the deferred foreign key would fail only the commit
+                        "  AND (SELECT count(*) FROM man WHERE id IN (?, ?)) = 2 " +
+                        "RETURNING id",
+                Long.class, manId, anotherManId, manId, manId, anotherManId, manId, anotherManId);
+    }
+
+    @Override
+    public List<Man> updateNames(Map<Long, String> namesByIds) {
+        Long[] ids = namesByIds.keySet().toArray(Long[]::new);
+        String[] names = new String[ids.length];
+        for (int i = 0; i < ids.length; i++) {
+            names[i] = namesByIds.get(ids[i]);
+        }
+        return jdbcTemplate.query("UPDATE man " +
+                        "SET name = n.name, version = version + 1 " +
+                        "FROM unnest(?, ?) AS n(id, name) " +
+                        "WHERE man.id = n.id AND man.name <> n.name " +
+                        "RETURNING man.id, man.name, man.partner_id",
+                ps -> {
+                    ps.setArray(1, ps.getConnection().createArrayOf("bigint", ids));
+                    ps.setArray(2, ps.getConnection().createArrayOf("varchar", names));
+                },
+                MAN_ROW_MAPPER);
+    }
+
+    @Override
+    @Nullable
+    public Man updateNameIfDiffers(Long manId, String name) {
+        List<Man> men = jdbcTemplate.query("UPDATE man " +
+                        "SET name = ?, version = version + 1 " +
+                        "WHERE id = ? AND name <> ? " +
+                        "RETURNING id, name, partner_id",
+                MAN_ROW_MAPPER, name, manId, name);
+        return men.isEmpty() ? null : men.get(0);
+    }
+}
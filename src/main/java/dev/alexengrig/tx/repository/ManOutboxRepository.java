@@ -0,0 +1,28 @@
+package dev.alexengrig.tx.repository;
+
+import dev.alexengrig.tx.domain.ManEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Events of the {@code man_outbox} table by plain SQL, so they join the transaction of the change.
+ */
+public interface ManOutboxRepository {
+    /**
+     * Inserts events in order with one statement.
+     */
+    void append(Collection<ManEvent> events);
+
+    /**
+     * Locks the oldest events, skipping events locked by other relays.
+     *
+     * @return locked events in id order
+     */
+    List<ManEvent> lockOldest(int limit);
+
+    /**
+     * @return number of deleted events
+     */
+    int delete(Collection<Long> ids);
+}
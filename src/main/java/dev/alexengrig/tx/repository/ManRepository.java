@@ -9,7 +9,7 @@ import javax.persistence.LockModeType;
 import java.util.Optional;
 
 @Repository
-public interface ManRepository extends JpaRepository<ManEntity, Long> {
+public interface ManRepository extends JpaRepository<ManEntity, Long>, ManBulkRepository {
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<ManEntity> findForUpdateById(Long id);
 }
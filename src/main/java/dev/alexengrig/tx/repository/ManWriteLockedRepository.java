@@ -1,8 +1,20 @@
 package dev.alexengrig.tx.repository;
 
 import dev.alexengrig.tx.entity.ManEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 @Repository
-public interface ManWriteLockedRepository extends WritePessimisticLockedRepository<ManEntity, Long> {
+public interface ManWriteLockedRepository extends WritePessimisticLockedRepository<ManEntity, Long>, ManBulkRepository {
+    /**
+     * Sets partners of both men in one statement, rows must be locked before.
+     */
+    @Modifying(flushAutomatically = true, clearAutomatically = true)
+    @Query(nativeQuery = true, value = "UPDATE man " +
+            "SET partner_id = CASE id WHEN :manId THEN :anotherManId ELSE :manId END, " +
+            "    version = version + 1 " +
+            "WHERE id IN (:manId, :anotherManId)")
+    int updatePartners(@Param("manId") Long manId, @Param("anotherManId") Long anotherManId);
 }
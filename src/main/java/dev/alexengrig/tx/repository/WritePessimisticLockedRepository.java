@@ -5,6 +5,8 @@ import org.springframework.data.repository.NoRepositoryBean;
 import org.springframework.data.repository.Repository;
 
 import javax.persistence.LockModeType;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 @NoRepositoryBean
@@ -12,5 +14,15 @@ public interface WritePessimisticLockedRepository<T, ID> extends Repository<T, I
     @Lock(LockModeType.PESSIMISTIC_WRITE)
     Optional<T> findById(ID id);
 
+    /**
+     * Locks rows in id order, so concurrent callers with overlapping ids can't deadlock each other.
+     */
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    List<T> findAllByIdInOrderByIdAsc(Collection<ID> ids);
+
     <S extends T> S save(S entity);
+
+    <S extends T> List<S> saveAll(Iterable<S> entities);
+
+    void flush();
 }
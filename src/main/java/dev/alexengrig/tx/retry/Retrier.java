@@ -0,0 +1,78 @@
+package dev.alexengrig.tx.retry;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Predicate;
+
+/**
+ * Repeats a call while it fails with a retryable exception,
+ * sleeping between attempts with exponential backoff and full jitter,
+ * as long as the attempts and the shared {@link RetryBudget} allow.
+ */
+@Slf4j
+public class Retrier {
+    private final int maxAttempts;
+    private final long initialBackoffNanos;
+    private final long maxBackoffNanos;
+    private final RetryBudget budget;
+
+    public Retrier(int maxAttempts, Duration initialBackoff, Duration maxBackoff) {
+        this(maxAttempts, initialBackoff, maxBackoff, RetryBudget.UNLIMITED);
+    }
+
+    public Retrier(int maxAttempts, Duration initialBackoff, Duration maxBackoff, RetryBudget budget) {
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        }
+        this.maxAttempts = maxAttempts;
+        this.initialBackoffNanos = Objects.requireNonNull(initialBackoff, "Initial backoff must not be null").toNanos();
+        this.maxBackoffNanos = Objects.requireNonNull(maxBackoff, "Max backoff must not be null").toNanos();
+        this.budget = Objects.requireNonNull(budget, "Retry budget must not be null");
+    }
+
+    public <T, E extends Exception> T call(RetryableCall<T, E> call, Predicate<? super RuntimeException> retryable)
+            throws E {
+        return call(call, retryable, RetryListener.NOOP);
+    }
+
+    public <T, E extends Exception> T call(RetryableCall<T, E> call, Predicate<? super RuntimeException> retryable,
+                                           RetryListener listener) throws E {
+        budget.deposit();
+        for (int attempt = 1; ; attempt++) {
+            try {
+                return call.call();
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryable.test(e)) {
+                    throw e;
+                }
+                if (!budget.tryWithdraw()) {
+                    log.debug("Retry budget is exhausted after attempt #{} failed: {}", attempt, e.toString());
+                    throw e;
+                }
+                listener.onRetry(e, attempt);
+                log.trace("Retrying after attempt #{} failed: {}", attempt, e.toString());
+                if (!backoff(attempt)) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    private boolean backoff(int attempt) {
+        long ceilingNanos = Math.min(maxBackoffNanos, initialBackoffNanos << Math.min(attempt - 1, 30));
+        if (ceilingNanos <= 0) {
+            return true;
+        }
+        long sleepNanos = ThreadLocalRandom.current().nextLong(ceilingNanos + 1);
+        try {
+            Thread.sleep(sleepNanos / 1_000_000, (int) (sleepNanos % 1_000_000));
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
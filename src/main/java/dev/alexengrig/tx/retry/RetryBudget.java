@@ -0,0 +1,57 @@
+package dev.alexengrig.tx.retry;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Caps retries by a share of calls, so retries don't multiply the load when most calls fail:
+ * every call deposits {@code ratio} of a token up to {@code maxTokens}, every retry withdraws a token.
+ */
+public class RetryBudget {
+    public static final RetryBudget UNLIMITED = new RetryBudget(0, 0) {
+        @Override
+        public void deposit() {
+        }
+
+        @Override
+        public boolean tryWithdraw() {
+            return true;
+        }
+    };
+
+    private static final long MILLIS_PER_TOKEN = 1000;
+
+    private final long depositMillis;
+    private final long maxMillis;
+    private final AtomicLong millis;
+
+    public RetryBudget(double ratio, int maxTokens) {
+        if (ratio < 0) {
+            throw new IllegalArgumentException("Ratio must not be negative: " + ratio);
+        }
+        if (maxTokens < 0) {
+            throw new IllegalArgumentException("Max tokens must not be negative: " + maxTokens);
+        }
+        this.depositMillis = Math.round(ratio * MILLIS_PER_TOKEN);
+        this.maxMillis = maxTokens * MILLIS_PER_TOKEN;
+        // Full at start, so the first failures are retried
+        this.millis = new AtomicLong(maxMillis);
+    }
+
+    public void deposit() {
+        millis.accumulateAndGet(depositMillis, (current, deposit) -> Math.min(maxMillis, current + deposit));
+    }
+
+    /**
+     * @return {@code true} if a retry is allowed
+     */
+    public boolean tryWithdraw() {
+        long current;
+        do {
+            current = millis.get();
+            if (current < MILLIS_PER_TOKEN) {
+                return false;
+            }
+        } while (!millis.compareAndSet(current, current - MILLIS_PER_TOKEN));
+        return true;
+    }
+}
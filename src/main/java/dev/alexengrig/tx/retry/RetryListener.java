@@ -0,0 +1,14 @@
+package dev.alexengrig.tx.retry;
+
+@FunctionalInterface
+public interface RetryListener {
+    RetryListener NOOP = (failure, attempt) -> {
+    };
+
+    /**
+     * Called before the backoff of a retry.
+     *
+     * @param attempt number of the failed attempt
+     */
+    void onRetry(RuntimeException failure, int attempt);
+}
@@ -0,0 +1,6 @@
+package dev.alexengrig.tx.retry;
+
+@FunctionalInterface
+public interface RetryableCall<T, E extends Exception> {
+    T call() throws E;
+}
@@ -0,0 +1,54 @@
+package dev.alexengrig.tx.retry;
+
+import java.sql.SQLException;
+
+/**
+ * Classifies failures by SQLSTATE of the {@link SQLException} they are caused by,
+ * however the persistence layers in between have wrapped it.
+ */
+public class SqlStates {
+    /**
+     * A SERIALIZABLE transaction would break serializability, for example by a read/write dependency cycle.
+     */
+    public static final String SERIALIZATION_FAILURE = "40001";
+    public static final String DEADLOCK_DETECTED = "40P01";
+    /**
+     * A lock wasn't acquired within {@code lock_timeout} or at once by {@code NOWAIT}.
+     */
+    public static final String LOCK_NOT_AVAILABLE = "55P03";
+    /**
+     * The connection failed, so the statement in flight may or may not have been done.
+     */
+    public static final String CONNECTION_EXCEPTION_CLASS = "08";
+
+    private SqlStates() {
+    }
+
+    /**
+     * @return SQLSTATE of the first {@link SQLException} in the cause chain, {@code null} if there is none
+     */
+    public static String of(Throwable exception) {
+        for (Throwable cause = exception; cause != null; cause = cause.getCause()) {
+            if (cause instanceof SQLException && ((SQLException) cause).getSQLState() != null) {
+                return ((SQLException) cause).getSQLState();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * @return {@code true} if the database aborted the transaction, so it may succeed if run again
+     */
+    public static boolean isSerializationFailure(Throwable exception) {
+        String sqlState = of(exception);
+        return SERIALIZATION_FAILURE.equals(sqlState) || DEADLOCK_DETECTED.equals(sqlState);
+    }
+
+    /**
+     * @return {@code true} if the failure is of the connection, not an answer of the database
+     */
+    public static boolean isConnectionException(Throwable exception) {
+        String sqlState = of(exception);
+        return sqlState != null && sqlState.startsWith(CONNECTION_EXCEPTION_CLASS);
+    }
+}
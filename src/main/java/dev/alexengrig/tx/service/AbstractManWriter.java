@@ -0,0 +1,31 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.entity.ManEntity;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.exception.SameManNameException;
+
+import java.util.List;
+
+public abstract class AbstractManWriter implements ManWriter {
+    protected ManEntity requireMan(List<ManEntity> men, Long manId) {
+        for (ManEntity man : men) {
+            if (man.getId().equals(manId)) {
+                return man;
+            }
+        }
+        throw new ManNotFoundException(manId);
+    }
+
+    protected void requireNameNotEquals(Long manId, String oldName, String newName) {
+        if (oldName.equals(newName)) {
+            throw new SameManNameException(manId, newName);
+        }
+    }
+
+    protected void requireBeFree(ManEntity man) throws NotFreeManException {
+        if (man.getPartner() != null) {
+            throw new NotFreeManException(man.getId(), man.getPartner().getId());
+        }
+    }
+}
@@ -0,0 +1,184 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.repository.ManBulkRepository;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A caller joins only a load whose query has not started yet, so it sees changes committed before the call
+@Slf4j
+public class BatchingManLoader implements ManLoader, DisposableBean {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final ConcurrentMap<Long, CompletableFuture<Man>> inFlight = new ConcurrentHashMap<>();
+    private final BlockingQueue<Long> queue = new LinkedBlockingQueue<>();
+    private final ManBulkRepository repository;
+    private final ManLoader fallback;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final long timeoutNanos;
+    private final ExecutorService executor;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    public BatchingManLoader(ManBulkRepository repository, ManLoader fallback,
+                             int maxBatchSize, Duration window, int threads, Duration timeout) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.repository = repository;
+        this.fallback = fallback;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.timeoutNanos = timeout.toNanos();
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, task -> {
+            Thread thread = new Thread(task, "man-loader-" + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.dispatcher = new Thread(this::dispatch, "man-loader-dispatcher");
+        this.dispatcher.setDaemon(true);
+        this.dispatcher.start();
+    }
+
+    @Override
+    public Man load(Long manId) {
+        // A batch is read outside of any transaction, so it wouldn't see the caller's own changes
+        if (!running || TransactionSynchronizationManager.isActualTransactionActive()) {
+            return fallback.load(manId);
+        }
+        CompletableFuture<Man> future = inFlight.get(manId);
+        if (future == null) {
+            CompletableFuture<Man> newFuture = new CompletableFuture<>();
+            future = inFlight.putIfAbsent(manId, newFuture);
+            if (future == null) {
+                future = newFuture;
+                queue.add(manId);
+                if (!running && inFlight.remove(manId, newFuture)) {
+                    // Closed concurrently, nobody will dispatch it
+                    return fallback.load(manId);
+                }
+            }
+        }
+        try {
+            return future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("Failed to load Man id=" + manId, e.getCause());
+        } catch (TimeoutException e) {
+            // A stuck load must not be joined by later callers
+            inFlight.remove(manId, future);
+            throw new QueryTimeoutException("Timed out loading Man id=" + manId, e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted loading Man id=" + manId, e);
+        }
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        dispatcher.interrupt();
+        dispatcher.join();
+        executor.shutdown();
+        executor.awaitTermination(1, TimeUnit.MINUTES);
+        List<Long> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (Long manId : rest) {
+            CompletableFuture<Man> future = inFlight.remove(manId);
+            if (future != null) {
+                future.completeExceptionally(new IllegalStateException("Loader is closed"));
+            }
+        }
+    }
+
+    private void dispatch() {
+        boolean interrupted = false;
+        while (running && !interrupted) {
+            List<Long> batch = new ArrayList<>(maxBatchSize);
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                executor.execute(() -> loadBatch(batch));
+            }
+        }
+    }
+
+    private void collectBatch(List<Long> batch) throws InterruptedException {
+        Long firstId = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (firstId == null) {
+            return;
+        }
+        batch.add(firstId);
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            Long id = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (id == null) {
+                return;
+            }
+            batch.add(id);
+        }
+    }
+
+    private void loadBatch(List<Long> ids) {
+        log.trace("Loading batch of {} men", ids.size());
+        Map<Long, CompletableFuture<Man>> futures = new HashMap<>();
+        for (Long manId : ids) {
+            // Remove before the query, so later callers start a load of their own
+            CompletableFuture<Man> future = inFlight.remove(manId);
+            if (future != null) {
+                futures.put(manId, future);
+            }
+        }
+        Map<Long, Man> men = new HashMap<>();
+        RuntimeException failure = null;
+        try {
+            for (Man man : repository.findMen(ids)) {
+                men.put(man.getId(), man);
+            }
+        } catch (RuntimeException e) {
+            failure = e;
+        }
+        for (Map.Entry<Long, CompletableFuture<Man>> entry : futures.entrySet()) {
+            Long manId = entry.getKey();
+            CompletableFuture<Man> future = entry.getValue();
+            Man man = men.get(manId);
+            if (failure != null) {
+                future.completeExceptionally(failure);
+            } else if (man != null) {
+                future.complete(man);
+            } else {
+                future.completeExceptionally(new ManNotFoundException(manId));
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.cache.ManCache;
+import dev.alexengrig.tx.cache.ManInvalidationBus;
+import dev.alexengrig.tx.domain.LinkResult;
+import dev.alexengrig.tx.domain.LinkStatus;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPage;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import lombok.RequiredArgsConstructor;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+
+@RequiredArgsConstructor
+public class CachingManService implements ManService {
+    private final ManService delegate;
+    private final ManCache cache;
+    private final ManInvalidationBus bus;
+
+    @Override
+    public Man create(String name) {
+        return delegate.create(name);
+    }
+
+    @Override
+    public List<Man> createAll(Collection<String> names) {
+        return delegate.createAll(names);
+    }
+
+    @Override
+    public Man get(Long manId) {
+        // Only CACHED reads are served from memory
+        return get(manId, ReadConsistency.SNAPSHOT);
+    }
+
+    @Override
+    public Man get(Long manId, ReadConsistency consistency) {
+        Objects.requireNonNull(manId, "Man id must not be null");
+        if (consistency == ReadConsistency.CACHED) {
+            return cache.get(manId, id -> delegate.get(id, ReadConsistency.SNAPSHOT));
+        }
+        return delegate.get(manId, consistency);
+    }
+
+    @Override
+    public ManPage list(String pageToken, int limit) {
+        return delegate.list(pageToken, limit);
+    }
+
+    @Override
+    public Man update(Long manId, String name) {
+        Man man = delegate.update(manId, name);
+        invalidateAfterCommit(List.of(manId));
+        return man;
+    }
+
+    @Override
+    public void link(Long manId, Long anotherManId) throws NotFreeManException {
+        delegate.link(manId, anotherManId);
+        invalidateAfterCommit(List.of(manId, anotherManId));
+    }
+
+    @Override
+    public Optional<Man> linkWithAnyFree(Long manId) throws NotFreeManException {
+        Optional<Man> partner = delegate.linkWithAnyFree(manId);
+        if (partner.isPresent()) {
+            invalidateAfterCommit(List.of(manId, partner.get().getId()));
+        }
+        return partner;
+    }
+
+    @Override
+    public void tryLink(Long manId, Long anotherManId) throws NotFreeManException {
+        delegate.tryLink(manId, anotherManId);
+        invalidateAfterCommit(List.of(manId, anotherManId));
+    }
+
+    @Override
+    public List<LinkResult> linkAll(List<ManPair> pairs) {
+        List<LinkResult> results = delegate.linkAll(pairs);
+        List<Long> linkedIds = new ArrayList<>();
+        for (LinkResult result : results) {
+            if (result.getStatus() == LinkStatus.LINKED) {
+                linkedIds.add(result.getPair().getManId());
+                linkedIds.add(result.getPair().getAnotherManId());
+            }
+        }
+        invalidateAfterCommit(linkedIds);
+        return results;
+    }
+
+    private void invalidateAfterCommit(List<Long> manIds) {
+        if (manIds.isEmpty()) {
+            return;
+        }
+        manIds.forEach(cache::invalidate);
+        // Within an outer transaction the change is visible only after commit, so invalidate again
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    manIds.forEach(cache::invalidate);
+                }
+            });
+        }
+        bus.publish(manIds);
+    }
+}
@@ -0,0 +1,12 @@
+package dev.alexengrig.tx.service;
+
+public enum ConcurrencyStrategy {
+    // Rows are locked by SELECT ... FOR UPDATE till the end of transaction
+    PESSIMISTIC,
+    // Rows are read without locks, concurrent changes are detected by version on commit
+    OPTIMISTIC,
+    // Rows are read without locks in a SERIALIZABLE transaction, it is retried on a conflict
+    SERIALIZABLE,
+    // Rows are changed by one conditional UPDATE, constraints of the table keep partners paired
+    CONDITIONAL
+}
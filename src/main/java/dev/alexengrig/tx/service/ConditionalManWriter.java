@@ -0,0 +1,114 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.entity.ManEntity;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.exception.SameManNameException;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.repository.ManRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+// Reads only to explain why a condition failed, so a row is locked only by its UPDATE till commit
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ConditionalManWriter extends AbstractManWriter {
+    private final ManRepository repository;
+    private final ManMetrics metrics;
+    private final ManOutbox outbox;
+    private final TransactionTemplate txTemplate;
+
+    @Override
+    public ConcurrencyStrategy getStrategy() {
+        return ConcurrencyStrategy.CONDITIONAL;
+    }
+
+    @Override
+    @Transactional
+    public Man update(Long manId, String name) {
+        metrics.recordCommit("update");
+        return updateIfDiffers(manId, name);
+    }
+
+    // By plain JDBC within the current transaction, so GroupCommitExecutor can group it
+    public Man updateIfDiffers(Long manId, String name) {
+        Man man = repository.updateNameIfDiffers(manId, name);
+        if (man == null) {
+            if (repository.findMen(List.of(manId)).isEmpty()) {
+                throw new ManNotFoundException(manId);
+            }
+            // The name was equal when the update checked it
+            throw new SameManNameException(manId, name);
+        }
+        log.trace("Updated {} for: name=\"{}\"", man, name);
+        outbox.renamed(List.of(man));
+        return man;
+    }
+
+    @Override
+    public void link(Long manId, Long anotherManId) throws NotFreeManException {
+        NotFreeManException notFree;
+        try {
+            notFree = txTemplate.execute(status -> {
+                try {
+                    linkIfFree(manId, anotherManId);
+                    return null;
+                } catch (NotFreeManException e) {
+                    status.setRollbackOnly();
+                    return e;
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Constraints of pairs are deferred, so a man gone before commit fails the commit, not the update
+            List<Man> men = repository.findMen(List.of(manId, anotherManId));
+            for (Long id : List.of(manId, anotherManId)) {
+                if (men.stream().noneMatch(man -> man.getId().equals(id))) {
+                    throw new ManNotFoundException(id);
+                }
+            }
+            throw e;
+        }
+        if (notFree != null) {
+            throw notFree;
+        }
+    }
+
+    private void linkIfFree(Long manId, Long anotherManId) throws NotFreeManException {
+        metrics.recordCommit("link");
+        List<Long> linkedIds = repository.updatePartnersIfFree(manId, anotherManId);
+        if (linkedIds.size() == 2) {
+            log.trace("Linked Man id={} and Man id={}", manId, anotherManId);
+            outbox.linked(List.of(new ManPair(manId, anotherManId)));
+            return;
+        }
+        // A free man may be linked already, so the transaction must roll back
+        log.trace("Linked only Man ids={} of Man id={} and Man id={}", linkedIds, manId, anotherManId);
+        List<ManEntity> men = repository.findAllById(List.of(manId, anotherManId));
+        ManEntity man = requireMan(men, manId);
+        ManEntity anotherMan = requireMan(men, anotherManId);
+        if (!linkedIds.contains(manId)) {
+            requireBeFree(man);
+        }
+        if (!linkedIds.contains(anotherManId)) {
+            requireBeFree(anotherMan);
+        }
+        throw new ConcurrencyFailureException("Man id=" + manId + " or Man id=" + anotherManId +
+                " was freed concurrently");
+    }
+
+    @Override
+    public boolean isRetryable(RuntimeException exception) {
+        return exception instanceof ConcurrencyFailureException;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import lombok.RequiredArgsConstructor;
+
+@RequiredArgsConstructor
+public class DirectManLoader implements ManLoader {
+    private final ManReader reader;
+
+    @Override
+    public Man load(Long manId) {
+        return reader.readSnapshot(manId);
+    }
+}
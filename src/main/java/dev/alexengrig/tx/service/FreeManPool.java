@@ -0,0 +1,132 @@
+package dev.alexengrig.tx.service;
+
+import org.springframework.lang.Nullable;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+// A hint only, the database decides whether men are free on commit
+public class FreeManPool {
+    private static final int PURGE_THRESHOLD = 64;
+
+    private final Stripe[] stripes;
+
+    public FreeManPool(int stripes) {
+        if (stripes < 1) {
+            throw new IllegalArgumentException("Number of stripes must be positive: " + stripes);
+        }
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+    }
+
+    public void add(Long manId) {
+        stripeOf(manId).add(manId);
+    }
+
+    public boolean take(Long manId) {
+        return stripeOf(manId).take(manId);
+    }
+
+    @Nullable
+    public Long takeAny(Long manId) {
+        int first = indexOf(manId);
+        for (int i = 0; i < stripes.length; i++) {
+            Long candidateId = stripes[(first + i) % stripes.length].takeAny();
+            if (candidateId != null) {
+                return candidateId;
+            }
+        }
+        return null;
+    }
+
+    // Entries in queues, taken ones included
+    int queuedCount() {
+        int count = 0;
+        for (Stripe stripe : stripes) {
+            count += stripe.queue.size();
+        }
+        return count;
+    }
+
+    public int size() {
+        int size = 0;
+        for (Stripe stripe : stripes) {
+            size += stripe.entries.size();
+        }
+        return size;
+    }
+
+    private Stripe stripeOf(Long manId) {
+        return stripes[indexOf(manId)];
+    }
+
+    private int indexOf(Long manId) {
+        return (int) Math.floorMod(manId, (long) stripes.length);
+    }
+
+    private static class Stripe {
+        // Entries are left in the queue when taken by id, takeAny skips them and add purges them
+        final Queue<Entry> queue = new ConcurrentLinkedQueue<>();
+        final ConcurrentMap<Long, Entry> entries = new ConcurrentHashMap<>();
+        // Approximate number of taken entries in the queue
+        final AtomicInteger takenCount = new AtomicInteger();
+
+        void add(Long manId) {
+            int taken = takenCount.get();
+            // Purged once taken entries outnumber free ones, so a purge costs no more than the takes before it
+            if (taken > PURGE_THRESHOLD && taken > entries.size() && takenCount.compareAndSet(taken, 0)) {
+                queue.removeIf(entry -> entry.taken.get());
+            }
+            Entry entry = new Entry(manId);
+            while (true) {
+                Entry current = entries.putIfAbsent(manId, entry);
+                if (current == null || current.taken.get() && entries.replace(manId, current, entry)) {
+                    queue.offer(entry);
+                    return;
+                }
+                if (!current.taken.get()) {
+                    // Already free
+                    return;
+                }
+            }
+        }
+
+        boolean take(Long manId) {
+            Entry entry = entries.get(manId);
+            if (entry == null || !entry.taken.compareAndSet(false, true)) {
+                return false;
+            }
+            entries.remove(manId, entry);
+            takenCount.incrementAndGet();
+            return true;
+        }
+
+        @Nullable
+        Long takeAny() {
+            Entry entry;
+            while ((entry = queue.poll()) != null) {
+                if (entry.taken.compareAndSet(false, true)) {
+                    entries.remove(entry.manId, entry);
+                    return entry.manId;
+                }
+                takenCount.decrementAndGet();
+            }
+            return null;
+        }
+    }
+
+    private static class Entry {
+        final Long manId;
+        final AtomicBoolean taken = new AtomicBoolean();
+
+        Entry(Long manId) {
+            this.manId = manId;
+        }
+    }
+}
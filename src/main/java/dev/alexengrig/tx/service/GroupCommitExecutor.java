@@ -0,0 +1,269 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.metrics.StatementCounter;
+import dev.alexengrig.tx.retry.SqlStates;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+// Writes must be plain JDBC on the data source of the transaction manager, JPA does not support savepoints
+@Slf4j
+public class GroupCommitExecutor implements DisposableBean {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BlockingQueue<Write<?>> queue = new LinkedBlockingQueue<>();
+    private final TransactionTemplate txTemplate;
+    private final JdbcTemplate jdbcTemplate;
+    private final StatementCounter statementCounter;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final long lockTimeoutMillis;
+    private final long timeoutNanos;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public GroupCommitExecutor(PlatformTransactionManager transactionManager, JdbcTemplate jdbcTemplate,
+                               StatementCounter statementCounter, int maxBatchSize, Duration window,
+                               Duration lockTimeout, Duration timeout) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        if (lockTimeout.toMillis() < 1) {
+            throw new IllegalArgumentException("Lock timeout must be at least 1ms: " + lockTimeout);
+        }
+        if (timeout.isNegative() || timeout.isZero()) {
+            throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+        }
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.jdbcTemplate = jdbcTemplate;
+        this.statementCounter = statementCounter;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.lockTimeoutMillis = lockTimeout.toMillis();
+        this.timeoutNanos = timeout.toNanos();
+        this.committer = new Thread(this::commit, "man-group-committer");
+        this.committer.setDaemon(true);
+        this.committer.start();
+    }
+
+    public <T> T execute(Supplier<T> action) {
+        if (TransactionSynchronizationManager.isActualTransactionActive()) {
+            return action.get();
+        }
+        if (!running) {
+            return txTemplate.execute(status -> action.get());
+        }
+        Write<T> write = new Write<>(action);
+        queue.add(write);
+        if (!running && queue.remove(write)) {
+            // Closed concurrently, nobody will commit it
+            return txTemplate.execute(status -> action.get());
+        }
+        T result;
+        try {
+            result = write.future.get(timeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw new IllegalStateException("Failed grouped write", e.getCause());
+        } catch (TimeoutException e) {
+            if (queue.remove(write)) {
+                // Not taken by the committer, so it wasn't run
+                return txTemplate.execute(status -> action.get());
+            }
+            // The group may still commit it, so running it again may duplicate it
+            throw new QueryTimeoutException("Timed out waiting for commit of group", e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted waiting for commit of group", e);
+        } finally {
+            statementCounter.add(write.statements);
+        }
+        if (write.alone) {
+            return txTemplate.execute(status -> action.get());
+        }
+        return result;
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        committer.interrupt();
+        committer.join();
+        List<Write<?>> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (Write<?> write : rest) {
+            write.runAlone();
+        }
+    }
+
+    private void commit() {
+        boolean interrupted = false;
+        while (running && !interrupted) {
+            List<Write<?>> group = new ArrayList<>(maxBatchSize);
+            try {
+                collectGroup(group);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!group.isEmpty()) {
+                try {
+                    commitGroup(group);
+                } catch (Throwable e) {
+                    // The committer must outlive the group, otherwise later callers wait for nothing
+                    log.error("Failed to commit group of {} writes", group.size(), e);
+                    for (Write<?> write : group) {
+                        write.future.completeExceptionally(e);
+                    }
+                }
+            }
+        }
+    }
+
+    private void collectGroup(List<Write<?>> group) throws InterruptedException {
+        Write<?> first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        group.add(first);
+        long deadline = System.nanoTime() + windowNanos;
+        while (group.size() < maxBatchSize) {
+            Write<?> write = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (write == null) {
+                return;
+            }
+            group.add(write);
+        }
+    }
+
+    private void commitGroup(List<Write<?>> group) {
+        Completion completion = new Completion();
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                TransactionSynchronizationManager.registerSynchronization(completion);
+                jdbcTemplate.execute("SET LOCAL lock_timeout = " + lockTimeoutMillis);
+                for (Write<?> write : group) {
+                    write.runUnderSavepoint(status, statementCounter);
+                }
+            });
+        } catch (RuntimeException e) {
+            if (completion.status == TransactionSynchronization.STATUS_COMMITTED) {
+                log.debug("Failed after commit of group of {} writes", group.size(), e);
+            } else if (isRolledBack(completion.status, e)) {
+                log.debug("Failed to commit group of {} writes, running them alone", group.size(), e);
+                for (Write<?> write : group) {
+                    write.runAlone();
+                }
+                return;
+            } else {
+                log.warn("Unknown outcome of commit of group of {} writes", group.size(), e);
+                for (Write<?> write : group) {
+                    write.fail(e);
+                }
+                return;
+            }
+        }
+        log.trace("Committed group of {} writes", group.size());
+        for (Write<?> write : group) {
+            write.complete();
+        }
+    }
+
+    private static boolean isRolledBack(Integer status, RuntimeException failure) {
+        if (status == null || status == TransactionSynchronization.STATUS_ROLLED_BACK) {
+            return true;
+        }
+        // A failed COMMIT rolls back the transaction if only the database answered
+        return SqlStates.of(failure) != null && !SqlStates.isConnectionException(failure);
+    }
+
+    private static class Completion implements TransactionSynchronization {
+        volatile Integer status;
+
+        @Override
+        public void afterCompletion(int status) {
+            this.status = status;
+        }
+    }
+
+    private static class Write<T> {
+        final Supplier<T> action;
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        T result;
+        Throwable failure;
+        // Whether the caller runs it in its own transaction
+        boolean alone;
+        long statements;
+
+        Write(Supplier<T> action) {
+            this.action = action;
+        }
+
+        void runUnderSavepoint(TransactionStatus status, StatementCounter statementCounter) {
+            Object savepoint = status.createSavepoint();
+            long startStatements = statementCounter.get();
+            try {
+                result = action.get();
+                status.releaseSavepoint(savepoint);
+            } catch (RuntimeException e) {
+                status.rollbackToSavepoint(savepoint);
+                if (SqlStates.LOCK_NOT_AVAILABLE.equals(SqlStates.of(e))) {
+                    alone = true;
+                } else {
+                    failure = e;
+                }
+            } catch (Error e) {
+                // Like an assertion of the write, it fails only its caller
+                status.rollbackToSavepoint(savepoint);
+                failure = e;
+            } finally {
+                statements += statementCounter.get() - startStatements;
+            }
+        }
+
+        void complete() {
+            if (alone) {
+                future.complete(null);
+            } else if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                future.complete(result);
+            }
+        }
+
+        void runAlone() {
+            alone = true;
+            complete();
+        }
+
+        void fail(RuntimeException exception) {
+            if (alone) {
+                // Rolled back to its savepoint, so it wasn't committed anyway
+                complete();
+            } else {
+                future.completeExceptionally(exception);
+            }
+        }
+    }
+}
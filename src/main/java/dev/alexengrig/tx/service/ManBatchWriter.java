@@ -0,0 +1,76 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.LinkResult;
+import dev.alexengrig.tx.domain.LinkStatus;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.repository.ManWriteLockedRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ManBatchWriter {
+    private final ManWriteLockedRepository writeLockedRepository;
+    private final ManMetrics metrics;
+    private final ManOutbox outbox;
+
+    @Transactional
+    public List<LinkResult> linkAll(List<ManPair> pairs) {
+        metrics.recordCommit("link-all");
+        Set<Long> ids = new TreeSet<>();
+        for (ManPair pair : pairs) {
+            // Otherwise the partner check constraint fails the whole batch on commit
+            if (!isSameMan(pair)) {
+                ids.add(pair.getManId());
+                ids.add(pair.getAnotherManId());
+            }
+        }
+        log.trace("Getting {} men for link of {} pairs", ids.size(), pairs.size());
+        Map<Long, Long> partnerIds = ids.isEmpty() ? Map.of() : metrics.recordLockWait("link-all",
+                () -> writeLockedRepository.lockPartnerIds(ids));
+        Set<Long> linkedIds = new HashSet<>();
+        List<ManPair> linkedPairs = new ArrayList<>();
+        List<LinkResult> results = new ArrayList<>(pairs.size());
+        for (ManPair pair : pairs) {
+            Long manId = pair.getManId();
+            Long anotherManId = pair.getAnotherManId();
+            LinkStatus status;
+            if (isSameMan(pair)) {
+                status = LinkStatus.SAME_MAN;
+            } else if (!partnerIds.containsKey(manId) || !partnerIds.containsKey(anotherManId)) {
+                status = LinkStatus.NOT_FOUND;
+            } else if (partnerIds.get(manId) != null || partnerIds.get(anotherManId) != null
+                    || linkedIds.contains(manId) || linkedIds.contains(anotherManId)) {
+                status = LinkStatus.NOT_FREE;
+            } else {
+                linkedIds.add(manId);
+                linkedIds.add(anotherManId);
+                linkedPairs.add(pair);
+                status = LinkStatus.LINKED;
+            }
+            results.add(new LinkResult(pair, status));
+        }
+        if (!linkedPairs.isEmpty()) {
+            int rows = writeLockedRepository.updatePartners(linkedPairs);
+            log.trace("Linked {} pairs: rows={}", linkedPairs.size(), rows);
+            outbox.linked(linkedPairs);
+        }
+        return results;
+    }
+
+    private static boolean isSameMan(ManPair pair) {
+        return pair.getManId().equals(pair.getAnotherManId());
+    }
+}
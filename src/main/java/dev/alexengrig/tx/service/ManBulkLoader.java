@@ -0,0 +1,93 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.config.ManProperties;
+import dev.alexengrig.tx.domain.BulkLoadReport;
+import dev.alexengrig.tx.entity.ManEntity;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.postgresql.PGConnection;
+import org.postgresql.copy.PGCopyOutputStream;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+// A chunk is read only after the previous one is written, so memory is bounded by the chunk size
+@Slf4j
+@Component
+@RequiredArgsConstructor
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+public class ManBulkLoader {
+    private final JdbcTemplate jdbcTemplate;
+    private final ManProperties properties;
+
+    @Transactional
+    public BulkLoadReport load(Stream<String> names) {
+        Objects.requireNonNull(names, "Names must not be null");
+        int chunkSize = properties.getBulkLoad().getChunkSize();
+        long start = System.nanoTime();
+        long rows = 0;
+        Iterator<String> iterator = names.iterator();
+        List<String> chunk = new ArrayList<>(chunkSize);
+        while (iterator.hasNext()) {
+            chunk.add(Objects.requireNonNull(iterator.next(), "Name must not be null"));
+            if (chunk.size() == chunkSize || !iterator.hasNext()) {
+                rows += copy(chunk);
+                chunk.clear();
+            }
+        }
+        BulkLoadReport report = new BulkLoadReport(rows, Duration.ofNanos(System.nanoTime() - start));
+        log.debug("Loaded {} men in {} ({} rows/s)", report.getRows(), report.getElapsed(),
+                Math.round(report.getRowsPerSecond()));
+        return report;
+    }
+
+    private long copy(List<String> names) {
+        List<Long> idBlocks = jdbcTemplate.queryForList("SELECT nextval('man_id_seq') FROM generate_series(1, ?)",
+                Long.class, (names.size() + ManEntity.ID_ALLOCATION_SIZE - 1) / ManEntity.ID_ALLOCATION_SIZE);
+        int bufferSize = (int) properties.getBulkLoad().getBufferSize().toBytes();
+        Long rows = jdbcTemplate.execute((ConnectionCallback<Long>) connection -> {
+            PGCopyOutputStream out = new PGCopyOutputStream(connection.unwrap(PGConnection.class),
+                    "COPY man (id, name) FROM STDIN WITH (FORMAT csv)", bufferSize);
+            try {
+                Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+                for (int i = 0; i < names.size(); i++) {
+                    long id = idBlocks.get(i / ManEntity.ID_ALLOCATION_SIZE) + i % ManEntity.ID_ALLOCATION_SIZE;
+                    writer.write(Long.toString(id));
+                    writer.write(',');
+                    writeCsvValue(writer, names.get(i));
+                    writer.write('\n');
+                }
+                writer.flush();
+                return out.endCopy();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            } finally {
+                if (out.isActive()) {
+                    out.cancelCopy();
+                }
+            }
+        });
+        return Objects.requireNonNull(rows, "Number of copied rows");
+    }
+
+    // Quoted, so an empty name isn't read as NULL
+    private static void writeCsvValue(Writer writer, String value) throws IOException {
+        writer.write('"');
+        writer.write(value.replace("\"", "\"\""));
+        writer.write('"');
+    }
+}
@@ -0,0 +1,23 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.entity.ManEntity;
+import dev.alexengrig.tx.repository.ManRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.stereotype.Component;
+
+// One nextval of man_id_seq is a block of ids, like pooled-lo of ManEntity
+@Component
+@RequiredArgsConstructor
+public class ManIdAllocator {
+    private final ManRepository repository;
+    private long nextId;
+    private long blockEnd;
+
+    public synchronized long allocate() {
+        if (nextId == blockEnd) {
+            nextId = repository.nextIdBlock();
+            blockEnd = nextId + ManEntity.ID_ALLOCATION_SIZE;
+        }
+        return nextId++;
+    }
+}
@@ -0,0 +1,14 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+
+import java.util.Collection;
+
+// Called after the changes are committed
+public interface ManListener {
+    default void onCreated(Collection<Man> men) {
+    }
+
+    default void onLinked(Long manId, Long anotherManId) {
+    }
+}
@@ -0,0 +1,7 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+
+public interface ManLoader {
+    Man load(Long manId);
+}
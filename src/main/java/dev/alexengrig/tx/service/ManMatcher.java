@@ -0,0 +1,66 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.repository.ManRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class ManMatcher {
+    private final ManRepository repository;
+    private final ManMetrics metrics;
+    private final ManOutbox outbox;
+
+    @Transactional
+    public Optional<Man> linkWithAnyFree(Long manId) throws NotFreeManException {
+        metrics.recordCommit("link-with-any-free");
+        Map<Long, Long> partnerIds = metrics.recordLockWait("link-with-any-free",
+                () -> repository.lockPartnerIds(List.of(manId)));
+        requireFree(partnerIds, manId);
+        Man candidate = repository.lockAnyFree(manId);
+        if (candidate == null) {
+            log.trace("No free man for Man id={}", manId);
+            return Optional.empty();
+        }
+        List<ManPair> pairs = List.of(new ManPair(manId, candidate.getId()));
+        int rows = repository.updatePartners(pairs);
+        log.trace("Linked Man id={} with free Man id={}: rows={}", manId, candidate.getId(), rows);
+        outbox.linked(pairs);
+        return Optional.of(new Man(candidate.getId(), candidate.getName(), manId));
+    }
+
+    @Transactional
+    public void tryLink(Long manId, Long anotherManId) throws NotFreeManException {
+        metrics.recordCommit("try-link");
+        Map<Long, Long> partnerIds = repository.lockPartnerIdsNoWait(List.of(manId, anotherManId));
+        requireFree(partnerIds, manId);
+        requireFree(partnerIds, anotherManId);
+        List<ManPair> pairs = List.of(new ManPair(manId, anotherManId));
+        int rows = repository.updatePartners(pairs);
+        log.trace("Linked Man id={} and Man id={}: rows={}", manId, anotherManId, rows);
+        outbox.linked(pairs);
+    }
+
+    private static void requireFree(Map<Long, Long> partnerIds, Long manId) throws NotFreeManException {
+        if (!partnerIds.containsKey(manId)) {
+            throw new ManNotFoundException(manId);
+        }
+        Long partnerId = partnerIds.get(manId);
+        if (partnerId != null) {
+            throw new NotFreeManException(manId, partnerId);
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.entity.ManEntity;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.repository.ManReadLockedRepository;
+import dev.alexengrig.tx.repository.ManRepository;
+import lombok.RequiredArgsConstructor;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Component
+@RequiredArgsConstructor
+public class ManReader {
+    private final ManReadLockedRepository readLockedRepository;
+    private final ManRepository repository;
+    private final Converter<ManEntity, Man> converter;
+    private final ManMetrics metrics;
+
+    @Transactional
+    public Man readLocked(Long manId) {
+        ManEntity entity = metrics.recordLockWait("get", () -> readLockedRepository.findById(manId))
+                .orElseThrow(() -> new ManNotFoundException(manId));
+        return converter.convert(entity);
+    }
+
+    @Transactional(readOnly = true)
+    public Man readSnapshot(Long manId) {
+        ManEntity entity = repository.findById(manId).orElseThrow(() -> new ManNotFoundException(manId));
+        return converter.convert(entity);
+    }
+
+    @Transactional(readOnly = true)
+    public List<Man> readPage(Long afterId, int limit) {
+        return repository.findPage(afterId, limit);
+    }
+}
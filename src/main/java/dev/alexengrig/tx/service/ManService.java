@@ -1,14 +1,39 @@
 package dev.alexengrig.tx.service;
 
+import dev.alexengrig.tx.domain.LinkResult;
 import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPage;
+import dev.alexengrig.tx.domain.ManPair;
 import dev.alexengrig.tx.exception.NotFreeManException;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+
 public interface ManService {
     Man create(String name);
 
+    List<Man> createAll(Collection<String> names);
+
+    // SNAPSHOT, a cache is used only by CACHED reads
     Man get(Long manId);
 
+    Man get(Long manId, ReadConsistency consistency);
+
+    // Keyset pages, so every page costs the same whatever its depth
+    ManPage list(String pageToken, int limit);
+
     Man update(Long manId, String name);
 
+    // Fails with IllegalArgumentException if ids are equal
     void link(Long manId, Long anotherManId) throws NotFreeManException;
+
+    // Concurrent calls never wait for each other's candidates and never get the same one
+    Optional<Man> linkWithAnyFree(Long manId) throws NotFreeManException;
+
+    // Fails at once with CannotAcquireLockException if a man is locked by another transaction
+    void tryLink(Long manId, Long anotherManId) throws NotFreeManException;
+
+    // In one transaction, results are in order of pairs
+    List<LinkResult> linkAll(List<ManPair> pairs);
 }
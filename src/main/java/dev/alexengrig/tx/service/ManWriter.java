@@ -0,0 +1,17 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.NotFreeManException;
+
+public interface ManWriter {
+    ConcurrencyStrategy getStrategy();
+
+    Man update(Long manId, String name);
+
+    void link(Long manId, Long anotherManId) throws NotFreeManException;
+
+    // Whether the failed operation may succeed in a new transaction
+    default boolean isRetryable(RuntimeException exception) {
+        return false;
+    }
+}
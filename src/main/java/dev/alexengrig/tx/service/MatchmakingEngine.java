@@ -0,0 +1,307 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.LinkResult;
+import dev.alexengrig.tx.domain.LinkStatus;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.repository.ManBulkRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.lang.Nullable;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+// The pool may be stale, so pairs that fail to commit are reconciled with the database
+@Slf4j
+public class MatchmakingEngine implements ManListener, InitializingBean, DisposableBean {
+    private static final long IDLE_POLL_MILLIS = 100;
+
+    private final BlockingQueue<Match> queue = new LinkedBlockingQueue<>();
+    // Men taken from the pool by requests that are not committed yet
+    private final Set<Long> matching = ConcurrentHashMap.newKeySet();
+    private final FreeManPool pool;
+    private final ManService service;
+    private final ManBulkRepository repository;
+    private final int maxBatchSize;
+    private final long windowNanos;
+    private final int maxAttempts;
+    private final int warmUpPageSize;
+    private final Thread committer;
+    private volatile boolean running = true;
+
+    public MatchmakingEngine(ManService service, ManBulkRepository repository, int stripes,
+                             int maxBatchSize, Duration window, int maxAttempts, int warmUpPageSize) {
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        if (maxAttempts < 1) {
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        }
+        this.pool = new FreeManPool(stripes);
+        this.service = service;
+        this.repository = repository;
+        this.maxBatchSize = maxBatchSize;
+        this.windowNanos = window.toNanos();
+        this.maxAttempts = maxAttempts;
+        this.warmUpPageSize = warmUpPageSize;
+        this.committer = new Thread(this::commit, "man-matchmaking-committer");
+        this.committer.setDaemon(true);
+    }
+
+    public CompletableFuture<Optional<Long>> match(Long manId) {
+        CompletableFuture<Optional<Long>> future = new CompletableFuture<>();
+        submit(new Match(manId, future), 1);
+        return future;
+    }
+
+    public int getFreeManCount() {
+        return pool.size();
+    }
+
+    @Override
+    public void onCreated(Collection<Man> men) {
+        for (Man man : men) {
+            if (man.getPartnerId() == null) {
+                pool.add(man.getId());
+            }
+        }
+    }
+
+    @Override
+    public void onLinked(Long manId, Long anotherManId) {
+        pool.take(manId);
+        pool.take(anotherManId);
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        int count = 0;
+        Long afterId = null;
+        List<Long> ids;
+        do {
+            ids = repository.findFreeIds(afterId, warmUpPageSize);
+            for (Long id : ids) {
+                pool.add(id);
+            }
+            count += ids.size();
+            afterId = ids.isEmpty() ? null : ids.get(ids.size() - 1);
+        } while (ids.size() == warmUpPageSize);
+        log.debug("Warmed up pool with {} free men", count);
+        committer.start();
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        running = false;
+        committer.interrupt();
+        committer.join();
+        List<Match> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        for (Match match : rest) {
+            match.future.completeExceptionally(new IllegalStateException("Matchmaking engine is closed"));
+        }
+    }
+
+    private void submit(Match match, int attempt) {
+        if (!running) {
+            match.future.completeExceptionally(new IllegalStateException("Matchmaking engine is closed"));
+            return;
+        }
+        match.attempt = attempt;
+        Long manId = match.manId;
+        if (!pool.take(manId) && !takeMissing(match)) {
+            return;
+        }
+        matching.add(manId);
+        Long candidateId = pool.takeAny(manId);
+        if (candidateId == null) {
+            matching.remove(manId);
+            pool.add(manId);
+            log.trace("No free man for Man id={}", manId);
+            match.future.complete(Optional.empty());
+            return;
+        }
+        matching.add(candidateId);
+        match.candidateId = candidateId;
+        queue.add(match);
+        if (!running && queue.remove(match)) {
+            // Closed concurrently, nobody will commit it
+            release(match);
+            match.future.completeExceptionally(new IllegalStateException("Matchmaking engine is closed"));
+        }
+    }
+
+    private boolean takeMissing(Match match) {
+        Long manId = match.manId;
+        if (matching.contains(manId)) {
+            match.future.completeExceptionally(new CannotAcquireLockException(
+                    "Man id=" + manId + " is being matched by another request"));
+            return false;
+        }
+        List<Man> men;
+        try {
+            men = repository.findMen(List.of(manId));
+        } catch (RuntimeException e) {
+            match.future.completeExceptionally(e);
+            return false;
+        }
+        if (men.isEmpty()) {
+            match.future.completeExceptionally(new ManNotFoundException(manId));
+            return false;
+        }
+        Long partnerId = men.get(0).getPartnerId();
+        if (partnerId != null) {
+            match.future.completeExceptionally(new NotFreeManException(manId, partnerId));
+            return false;
+        }
+        log.trace("Free Man id={} was missing in pool", manId);
+        pool.add(manId);
+        if (!pool.take(manId)) {
+            match.future.completeExceptionally(new CannotAcquireLockException(
+                    "Man id=" + manId + " is being matched by another request"));
+            return false;
+        }
+        return true;
+    }
+
+    private void commit() {
+        boolean interrupted = false;
+        while (running && !interrupted) {
+            List<Match> batch = new ArrayList<>(maxBatchSize);
+            try {
+                collectBatch(batch);
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+            if (!batch.isEmpty()) {
+                commitBatch(batch);
+            }
+        }
+    }
+
+    private void collectBatch(List<Match> batch) throws InterruptedException {
+        Match first = queue.poll(IDLE_POLL_MILLIS, TimeUnit.MILLISECONDS);
+        if (first == null) {
+            return;
+        }
+        batch.add(first);
+        long deadline = System.nanoTime() + windowNanos;
+        while (batch.size() < maxBatchSize) {
+            Match match = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+            if (match == null) {
+                return;
+            }
+            batch.add(match);
+        }
+    }
+
+    private void commitBatch(List<Match> batch) {
+        List<ManPair> pairs = new ArrayList<>(batch.size());
+        for (Match match : batch) {
+            pairs.add(new ManPair(match.manId, match.candidateId));
+        }
+        log.trace("Committing batch of {} matched pairs", pairs.size());
+        List<LinkResult> results;
+        try {
+            results = service.linkAll(pairs);
+        } catch (RuntimeException e) {
+            log.debug("Failed to commit batch of {} matched pairs", pairs.size(), e);
+            reconcile(batch, e);
+            return;
+        }
+        List<Match> failed = new ArrayList<>();
+        for (int i = 0; i < batch.size(); i++) {
+            Match match = batch.get(i);
+            if (results.get(i).getStatus() == LinkStatus.LINKED) {
+                matching.remove(match.manId);
+                matching.remove(match.candidateId);
+                match.future.complete(Optional.of(match.candidateId));
+            } else {
+                failed.add(match);
+            }
+        }
+        if (!failed.isEmpty()) {
+            reconcile(failed, null);
+        }
+    }
+
+    private void reconcile(List<Match> failed, @Nullable RuntimeException failure) {
+        List<Long> ids = new ArrayList<>(failed.size() * 2);
+        for (Match match : failed) {
+            ids.add(match.manId);
+            ids.add(match.candidateId);
+        }
+        Map<Long, Man> men = new HashMap<>();
+        try {
+            for (Man man : repository.findMen(ids)) {
+                men.put(man.getId(), man);
+            }
+        } catch (RuntimeException e) {
+            log.debug("Failed to reconcile {} matched pairs", failed.size(), e);
+            for (Match match : failed) {
+                // The database decides on the next commit
+                release(match);
+                match.future.completeExceptionally(failure != null ? failure : e);
+            }
+            return;
+        }
+        log.trace("Reconciling {} matched pairs", failed.size());
+        for (Match match : failed) {
+            matching.remove(match.manId);
+            matching.remove(match.candidateId);
+            Man candidate = men.get(match.candidateId);
+            if (candidate != null && candidate.getPartnerId() == null) {
+                pool.add(candidate.getId());
+            }
+        }
+        for (Match match : failed) {
+            Man man = men.get(match.manId);
+            if (man == null) {
+                match.future.completeExceptionally(new ManNotFoundException(match.manId));
+            } else if (man.getPartnerId() != null) {
+                match.future.completeExceptionally(new NotFreeManException(match.manId, man.getPartnerId()));
+            } else {
+                pool.add(match.manId);
+                if (match.attempt < maxAttempts) {
+                    submit(match, match.attempt + 1);
+                } else {
+                    match.future.completeExceptionally(failure != null ? failure : new ConcurrencyFailureException(
+                            "Man id=" + match.manId + " is not matched in " + maxAttempts + " attempts"));
+                }
+            }
+        }
+    }
+
+    private void release(Match match) {
+        matching.remove(match.manId);
+        matching.remove(match.candidateId);
+        pool.add(match.manId);
+        pool.add(match.candidateId);
+    }
+
+    @RequiredArgsConstructor
+    private static class Match {
+        final Long manId;
+        final CompletableFuture<Optional<Long>> future;
+        Long candidateId;
+        int attempt;
+    }
+}
@@ -0,0 +1,72 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.entity.ManEntity;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.repository.ManRepository;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class OptimisticManWriter extends AbstractManWriter {
+    private final ManRepository repository;
+    private final Converter<ManEntity, Man> converter;
+    private final ManMetrics metrics;
+    private final ManOutbox outbox;
+
+    @Override
+    public ConcurrencyStrategy getStrategy() {
+        return ConcurrencyStrategy.OPTIMISTIC;
+    }
+
+    @Override
+    @Transactional
+    public Man update(Long manId, String name) {
+        metrics.recordCommit("update");
+        log.trace("Getting Man id={} for update: name=\"{}\"", manId, name);
+        ManEntity entity = repository.findById(manId).orElseThrow(() -> new ManNotFoundException(manId));
+        log.trace("Got {} for update: name=\"{}\"", entity, name);
+        requireNameNotEquals(manId, entity.getName(), name);
+        entity.setName(name);
+        // Flush to get the version conflict here, but not on commit
+        ManEntity updatedEntity = repository.saveAndFlush(entity);
+        log.trace("Updated {} for: name=\"{}\"", updatedEntity, name);
+        Man man = converter.convert(updatedEntity);
+        outbox.renamed(List.of(man));
+        return man;
+    }
+
+    @Override
+    @Transactional
+    public void link(Long manId, Long anotherManId) throws NotFreeManException {
+        metrics.recordCommit("link");
+        log.trace("Getting Man id={} and Man id={} for link", manId, anotherManId);
+        List<ManEntity> men = repository.findAllById(List.of(manId, anotherManId));
+        ManEntity man = requireMan(men, manId);
+        ManEntity anotherMan = requireMan(men, anotherManId);
+        requireBeFree(man);
+        requireBeFree(anotherMan);
+        man.setPartner(anotherMan);
+        anotherMan.setPartner(man);
+        repository.saveAllAndFlush(List.of(man, anotherMan));
+        log.trace("Linked Man id={} and Man id={}", manId, anotherManId);
+        outbox.linked(List.of(new ManPair(manId, anotherManId)));
+    }
+
+    @Override
+    public boolean isRetryable(RuntimeException exception) {
+        return exception instanceof OptimisticLockingFailureException;
+    }
+}
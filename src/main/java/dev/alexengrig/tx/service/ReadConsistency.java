@@ -0,0 +1,9 @@
+package dev.alexengrig.tx.service;
+
+public enum ReadConsistency {
+    // FOR SHARE, waits for concurrent writers
+    LOCKED,
+    SNAPSHOT,
+    // May be stale, SNAPSHOT without a cache
+    CACHED
+}
@@ -0,0 +1,75 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPair;
+import dev.alexengrig.tx.entity.ManEntity;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.exception.SameManNameException;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.repository.ManRepository;
+import dev.alexengrig.tx.retry.SqlStates;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.convert.converter.Converter;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+
+// Reads are valid only if it commits, so it commits on domain exceptions too and a failed commit is retried
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class SerializableManWriter extends AbstractManWriter {
+    private final ManRepository repository;
+    private final Converter<ManEntity, Man> converter;
+    private final ManMetrics metrics;
+    private final ManOutbox outbox;
+
+    @Override
+    public ConcurrencyStrategy getStrategy() {
+        return ConcurrencyStrategy.SERIALIZABLE;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE,
+            noRollbackFor = {ManNotFoundException.class, SameManNameException.class})
+    public Man update(Long manId, String name) {
+        metrics.recordCommit("update");
+        log.trace("Getting Man id={} for update: name=\"{}\"", manId, name);
+        ManEntity entity = repository.findById(manId).orElseThrow(() -> new ManNotFoundException(manId));
+        log.trace("Got {} for update: name=\"{}\"", entity, name);
+        requireNameNotEquals(manId, entity.getName(), name);
+        entity.setName(name);
+        ManEntity updatedEntity = repository.saveAndFlush(entity);
+        log.trace("Updated {} for: name=\"{}\"", updatedEntity, name);
+        Man man = converter.convert(updatedEntity);
+        outbox.renamed(List.of(man));
+        return man;
+    }
+
+    @Override
+    @Transactional(isolation = Isolation.SERIALIZABLE, noRollbackFor = ManNotFoundException.class)
+    public void link(Long manId, Long anotherManId) throws NotFreeManException {
+        metrics.recordCommit("link");
+        log.trace("Getting Man id={} and Man id={} for link", manId, anotherManId);
+        List<ManEntity> men = repository.findAllById(List.of(manId, anotherManId));
+        ManEntity man = requireMan(men, manId);
+        ManEntity anotherMan = requireMan(men, anotherManId);
+        requireBeFree(man);
+        requireBeFree(anotherMan);
+        man.setPartner(anotherMan);
+        anotherMan.setPartner(man);
+        repository.saveAllAndFlush(List.of(man, anotherMan));
+        log.trace("Linked Man id={} and Man id={}", manId, anotherManId);
+        outbox.linked(List.of(new ManPair(manId, anotherManId)));
+    }
+
+    @Override
+    public boolean isRetryable(RuntimeException exception) {
+        return SqlStates.isSerializationFailure(exception);
+    }
+}
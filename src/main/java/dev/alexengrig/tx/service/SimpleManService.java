@@ -1,91 +1,344 @@
 package dev.alexengrig.tx.service;
 
+import dev.alexengrig.tx.config.ManProperties;
+import dev.alexengrig.tx.domain.LinkResult;
+import dev.alexengrig.tx.domain.LinkStatus;
 import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPage;
+import dev.alexengrig.tx.domain.ManPair;
 import dev.alexengrig.tx.entity.ManEntity;
-import dev.alexengrig.tx.exception.ManNotFoundException;
 import dev.alexengrig.tx.exception.NotFreeManException;
-import dev.alexengrig.tx.exception.SameManNameException;
-import dev.alexengrig.tx.repository.ManReadLockedRepository;
+import dev.alexengrig.tx.metrics.ManMetrics;
+import dev.alexengrig.tx.metrics.StatementCounter;
+import dev.alexengrig.tx.outbox.ManOutbox;
 import dev.alexengrig.tx.repository.ManWriteLockedRepository;
+import dev.alexengrig.tx.retry.Retrier;
+import dev.alexengrig.tx.retry.RetryableCall;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.core.convert.converter.Converter;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
+import javax.persistence.EntityManager;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.List;
 import java.util.Objects;
+import java.util.Optional;
+import java.util.function.Consumer;
 
 @Slf4j
 @Service
 @RequiredArgsConstructor
 public class SimpleManService implements ManService {
+    private static final Base64.Encoder PAGE_TOKEN_ENCODER = Base64.getUrlEncoder().withoutPadding();
+    private static final Base64.Decoder PAGE_TOKEN_DECODER = Base64.getUrlDecoder();
+
     private final ManWriteLockedRepository writeLockedRepository;
-    private final ManReadLockedRepository readLockedRepository;
     private final Converter<ManEntity, Man> converter;
+    private final EntityManager entityManager;
+    private final List<ManWriter> writers;
+    private final ManProperties properties;
+    private final Retrier retrier;
+    private final ManReader reader;
+    private final ManBatchWriter batchWriter;
+    private final ManMatcher matcher;
+    private final ManLoader loader;
+    private final ManMetrics metrics;
+    private final StatementCounter statementCounter;
+    private final ObjectProvider<ManListener> listeners;
+    private final ObjectProvider<WriteBehindRenamer> writeBehind;
+    private final ObjectProvider<GroupCommitExecutor> groupCommit;
+    private final ManIdAllocator idAllocator;
+    private final ManOutbox outbox;
+    private final TransactionTemplate txTemplate;
 
     @Override
     public Man create(String name) {
         Objects.requireNonNull(name, "Name must not be null");
-        ManEntity entity = new ManEntity(name);
-        ManEntity savedEntity = writeLockedRepository.save(entity);
-        return converter.convert(savedEntity);
+        GroupCommitExecutor executor = groupCommit.getIfAvailable();
+        return instrument("create", () -> {
+            Man man;
+            if (executor != null && !TransactionSynchronizationManager.isActualTransactionActive()) {
+                man = executor.execute(() -> insert(name));
+            } else {
+                man = txTemplate.execute(status -> save(name));
+            }
+            notifyAfterCommit(listener -> listener.onCreated(List.of(man)));
+            return man;
+        });
     }
 
     @Override
     @Transactional
+    public List<Man> createAll(Collection<String> names) {
+        Objects.requireNonNull(names, "Names must not be null");
+        List<Man> men = instrument("create-all", () -> saveAll(names));
+        notifyAfterCommit(listener -> listener.onCreated(men));
+        return men;
+    }
+
+    @Override
     public Man get(Long manId) {
+        return get(manId, ReadConsistency.SNAPSHOT);
+    }
+
+    @Override
+    public Man get(Long manId, ReadConsistency consistency) {
         Objects.requireNonNull(manId, "Man id must not be null");
-        ManEntity entity = getMan(manId);
-        return converter.convert(entity);
+        Objects.requireNonNull(consistency, "Read consistency must not be null");
+        return instrument("get", () -> withPendingName(read(manId, consistency)));
+    }
+
+    private Man read(Long manId, ReadConsistency consistency) {
+        switch (consistency) {
+            case LOCKED:
+                return reader.readLocked(manId);
+            case SNAPSHOT:
+            case CACHED:
+                // No cache here, see CachingManService
+                return loader.load(manId);
+            default:
+                throw new IllegalArgumentException("Unknown read consistency: " + consistency);
+        }
+    }
+
+    @Override
+    public ManPage list(String pageToken, int limit) {
+        if (limit < 1) {
+            throw new IllegalArgumentException("Limit must be positive: " + limit);
+        }
+        Long afterId = pageToken != null ? decodePageToken(pageToken) : null;
+        return instrument("list", () -> {
+            // One more man tells whether there is a next page
+            List<Man> men = withPendingNames(reader.readPage(afterId, limit + 1));
+            if (men.size() <= limit) {
+                return new ManPage(men, null);
+            }
+            List<Man> page = men.subList(0, limit);
+            return new ManPage(List.copyOf(page), encodePageToken(page.get(limit - 1).getId()));
+        });
     }
 
     @Override
-    @Transactional
     public Man update(Long manId, String name) {
         Objects.requireNonNull(manId, "Man id must not be null");
-        Objects.requireNonNull(manId, "New man name must not be null");
-        log.trace("Getting Man id={} for update: name=\"{}\"", manId, name);
-        ManEntity entity = getManForUpdate(manId);
-        log.trace("Got {} for update: name=\"{}\"", entity, name);
-        requireNameNotEquals(manId, entity.getName(), name);
-        entity.setName(name);
-        ManEntity updatedEntity = writeLockedRepository.save(entity);
-        log.trace("Updated {} for: name=\"{}\"", updatedEntity, name);
-        return converter.convert(updatedEntity);
+        Objects.requireNonNull(name, "New man name must not be null");
+        WriteBehindRenamer renamer = writeBehind.getIfAvailable();
+        if (renamer != null) {
+            if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+                return instrument("update", () -> renamer.rename(manId, name));
+            }
+            // The rename must be rolled back with the transaction, so write it through after the pending one
+            renamer.flush(manId);
+        }
+        ManWriter writer = getWriter();
+        GroupCommitExecutor executor = groupCommit.getIfAvailable();
+        if (executor != null && writer instanceof ConditionalManWriter
+                && !TransactionSynchronizationManager.isActualTransactionActive()) {
+            // Other strategies lock or read by JPA, which can't join the plain JDBC transaction of a group
+            ConditionalManWriter conditionalWriter = (ConditionalManWriter) writer;
+            return instrument("update", () -> retrier.call(() -> executor.execute(() -> {
+                        Man man = conditionalWriter.updateIfDiffers(manId, name);
+                        // A grouped write rolled back to its savepoint must not time the commit of the group
+                        metrics.recordCommit("update");
+                        return man;
+                    }),
+                    writer::isRetryable, (failure, attempt) -> metrics.recordRetry("update", failure)));
+        }
+        return instrument("update", () -> retrier.call(() -> writer.update(manId, name), writer::isRetryable,
+                (failure, attempt) -> metrics.recordRetry("update", failure)));
     }
 
     @Override
-    @Transactional
     public void link(Long manId, Long anotherManId) throws NotFreeManException {
         Objects.requireNonNull(manId, "Man id must not be null");
-        Objects.requireNonNull(manId, "Another man id must not be null");
-        ManEntity man = getManForUpdate(manId);
-        ManEntity anotherMan = getManForUpdate(anotherManId);
-        requireBeFree(man);
-        requireBeFree(anotherMan);
-        man.setPartner(anotherMan);
-        anotherMan.setPartner(man);
-        writeLockedRepository.save(man);
-        writeLockedRepository.save(anotherMan);
+        Objects.requireNonNull(anotherManId, "Another man id must not be null");
+        requireDifferent(manId, anotherManId);
+        ManWriter writer = getWriter();
+        instrument("link", () -> retrier.call(() -> {
+            writer.link(manId, anotherManId);
+            return null;
+        }, writer::isRetryable, (failure, attempt) -> metrics.recordRetry("link", failure)));
+        notifyAfterCommit(listener -> listener.onLinked(manId, anotherManId));
+    }
+
+    @Override
+    public Optional<Man> linkWithAnyFree(Long manId) throws NotFreeManException {
+        Objects.requireNonNull(manId, "Man id must not be null");
+        Optional<Man> partner = instrument("link-with-any-free", () -> matcher.linkWithAnyFree(manId));
+        partner.ifPresent(man -> notifyAfterCommit(listener -> listener.onLinked(manId, man.getId())));
+        return partner;
+    }
+
+    @Override
+    public void tryLink(Long manId, Long anotherManId) throws NotFreeManException {
+        Objects.requireNonNull(manId, "Man id must not be null");
+        Objects.requireNonNull(anotherManId, "Another man id must not be null");
+        requireDifferent(manId, anotherManId);
+        instrument("try-link", () -> {
+            matcher.tryLink(manId, anotherManId);
+            return null;
+        });
+        notifyAfterCommit(listener -> listener.onLinked(manId, anotherManId));
+    }
+
+    @Override
+    public List<LinkResult> linkAll(List<ManPair> pairs) {
+        Objects.requireNonNull(pairs, "Pairs must not be null");
+        for (ManPair pair : pairs) {
+            Objects.requireNonNull(pair, "Pair must not be null");
+            Objects.requireNonNull(pair.getManId(), "Man id must not be null");
+            Objects.requireNonNull(pair.getAnotherManId(), "Another man id must not be null");
+        }
+        if (pairs.isEmpty()) {
+            return List.of();
+        }
+        List<LinkResult> results = instrument("link-all", () -> batchWriter.linkAll(pairs));
+        for (LinkResult result : results) {
+            if (result.getStatus() == LinkStatus.LINKED) {
+                ManPair pair = result.getPair();
+                notifyAfterCommit(listener -> listener.onLinked(pair.getManId(), pair.getAnotherManId()));
+            }
+        }
+        return results;
+    }
+
+    private Man insert(String name) {
+        Man man = writeLockedRepository.insert(idAllocator.allocate(), name);
+        metrics.recordCommit("create");
+        outbox.created(List.of(man));
+        return man;
     }
 
-    private ManEntity getMan(Long manId) {
-        return readLockedRepository.findById(manId).orElseThrow(() -> new ManNotFoundException(manId));
+    private Man save(String name) {
+        metrics.recordCommit("create");
+        ManEntity savedEntity = writeLockedRepository.save(new ManEntity(name));
+        Man man = converter.convert(savedEntity);
+        outbox.created(List.of(man));
+        return man;
     }
 
-    private ManEntity getManForUpdate(Long manId) {
-        return writeLockedRepository.findById(manId).orElseThrow(() -> new ManNotFoundException(manId));
+    private List<Man> saveAll(Collection<String> names) {
+        metrics.recordCommit("create-all");
+        List<Man> men = new ArrayList<>(names.size());
+        List<ManEntity> batch = new ArrayList<>(Math.min(names.size(), ManEntity.ID_ALLOCATION_SIZE));
+        for (String name : names) {
+            Objects.requireNonNull(name, "Name must not be null");
+            batch.add(new ManEntity(name));
+            if (batch.size() == ManEntity.ID_ALLOCATION_SIZE) {
+                men.addAll(saveBatch(batch));
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            men.addAll(saveBatch(batch));
+        }
+        return men;
     }
 
-    private void requireNameNotEquals(Long manId, String oldName, String newName) {
-        if (oldName.equals(newName)) {
-            throw new SameManNameException(manId, newName);
+    private List<Man> saveBatch(List<ManEntity> batch) {
+        log.trace("Saving batch of {} men", batch.size());
+        List<ManEntity> savedEntities = writeLockedRepository.saveAll(batch);
+        writeLockedRepository.flush();
+        List<Man> men = new ArrayList<>(savedEntities.size());
+        for (ManEntity savedEntity : savedEntities) {
+            men.add(converter.convert(savedEntity));
+        }
+        // Saved entities are not needed anymore, so keep the persistence context small
+        entityManager.clear();
+        outbox.created(men);
+        return men;
+    }
+
+    private Man withPendingName(Man man) {
+        WriteBehindRenamer renamer = writeBehind.getIfAvailable();
+        return renamer != null ? renamer.withPendingName(man) : man;
+    }
+
+    private List<Man> withPendingNames(List<Man> men) {
+        WriteBehindRenamer renamer = writeBehind.getIfAvailable();
+        if (renamer == null || renamer.getPendingCount() == 0) {
+            return men;
+        }
+        List<Man> result = new ArrayList<>(men.size());
+        for (Man man : men) {
+            result.add(renamer.withPendingName(man));
+        }
+        return result;
+    }
+
+    private void notifyAfterCommit(Consumer<ManListener> event) {
+        // Within an outer transaction listeners must not see changes that may be rolled back
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    listeners.orderedStream().forEach(event);
+                }
+            });
+        } else {
+            listeners.orderedStream().forEach(event);
+        }
+    }
+
+    private <T, E extends Exception> T instrument(String operation, RetryableCall<T, E> call) throws E {
+        if (!metrics.isEnabled()) {
+            return call.call();
+        }
+        metrics.startOperation();
+        long statements = statementCounter.get();
+        long start = System.nanoTime();
+        Exception failure = null;
+        try {
+            return call.call();
+        } catch (Exception e) {
+            failure = e;
+            throw e;
+        } finally {
+            metrics.recordOperation(operation, ManMetrics.outcomeOf(failure), System.nanoTime() - start,
+                    statementCounter.get() - statements);
+        }
+    }
+
+    private static void requireDifferent(Long manId, Long anotherManId) {
+        // Otherwise the partner check constraint fails the commit
+        if (manId.equals(anotherManId)) {
+            throw new IllegalArgumentException("Man can't be linked with himself: id=" + manId);
+        }
+    }
+
+    private static String encodePageToken(long lastManId) {
+        return PAGE_TOKEN_ENCODER.encodeToString(ByteBuffer.allocate(Long.BYTES).putLong(lastManId).array());
+    }
+
+    private static Long decodePageToken(String pageToken) {
+        byte[] bytes;
+        try {
+            bytes = PAGE_TOKEN_DECODER.decode(pageToken);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken, e);
+        }
+        if (bytes.length != Long.BYTES) {
+            throw new IllegalArgumentException("Invalid page token: " + pageToken);
         }
+        return ByteBuffer.wrap(bytes).getLong();
     }
 
-    private void requireBeFree(ManEntity man) throws NotFreeManException {
-        if (man.getPartner() != null) {
-            throw new NotFreeManException(man.getId(), man.getPartner().getId());
+    private ManWriter getWriter() {
+        ConcurrencyStrategy strategy = properties.getConcurrencyStrategy();
+        for (ManWriter writer : writers) {
+            if (writer.getStrategy() == strategy) {
+                return writer;
+            }
         }
+        throw new IllegalStateException("No writer for concurrency strategy: " + strategy);
     }
 }
@@ -0,0 +1,200 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.cache.ManInvalidationBus;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.SameManNameException;
+import dev.alexengrig.tx.outbox.ManOutbox;
+import dev.alexengrig.tx.repository.ManBulkRepository;
+import dev.alexengrig.tx.retry.SqlStates;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Renames are acknowledged before they are written, so pending ones are lost if the node crashes
+@Slf4j
+public class WriteBehindRenamer implements DisposableBean {
+    private final ConcurrentMap<Long, String> pending = new ConcurrentHashMap<>();
+    // Ids of renames being written by flushes, guarded by this
+    private final Set<Long> flushing = new HashSet<>();
+    private final ManBulkRepository repository;
+    private final ManLoader loader;
+    private final ManOutbox outbox;
+    private final ManInvalidationBus bus;
+    private final TransactionTemplate txTemplate;
+    private final int maxPending;
+    private final int maxBatchSize;
+    private final ScheduledExecutorService flusher;
+
+    public WriteBehindRenamer(ManBulkRepository repository, ManLoader loader, ManOutbox outbox,
+                              ManInvalidationBus bus, PlatformTransactionManager transactionManager,
+                              int maxPending, int maxBatchSize, Duration flushInterval) {
+        if (maxPending < 1) {
+            throw new IllegalArgumentException("Max pending renames must be positive: " + maxPending);
+        }
+        if (maxBatchSize < 1) {
+            throw new IllegalArgumentException("Max batch size must be positive: " + maxBatchSize);
+        }
+        this.repository = repository;
+        this.loader = loader;
+        this.outbox = outbox;
+        this.bus = bus;
+        this.txTemplate = new TransactionTemplate(transactionManager);
+        this.txTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.maxPending = maxPending;
+        this.maxBatchSize = maxBatchSize;
+        this.flusher = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "man-rename-flusher");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long intervalNanos = flushInterval.toNanos();
+        this.flusher.scheduleWithFixedDelay(this::flushQuietly, intervalNanos, intervalNanos, TimeUnit.NANOSECONDS);
+    }
+
+    public Man rename(Long manId, String name) {
+        // Not found fails here, a man deleted later is skipped by the flush
+        Man man = loader.load(manId);
+        if (pending.size() >= maxPending && !pending.containsKey(manId)) {
+            log.trace("Flushing full buffer of {} renames", pending.size());
+            flush();
+        }
+        pending.compute(manId, (id, pendingName) -> {
+            String latestName = pendingName != null ? pendingName : man.getName();
+            if (latestName.equals(name)) {
+                throw new SameManNameException(manId, name);
+            }
+            return name;
+        });
+        log.trace("Buffered rename of Man id={}", manId);
+        return new Man(manId, name, man.getPartnerId());
+    }
+
+    public Man withPendingName(Man man) {
+        String name = pending.get(man.getId());
+        return name != null ? new Man(man.getId(), name, man.getPartnerId()) : man;
+    }
+
+    public int getPendingCount() {
+        return pending.size();
+    }
+
+    // A rename stays pending until it is written, so reads see it and a failed write is retried
+    public void flush() {
+        // In id order, so flushes and writers lock rows in the same order
+        List<Long> ids = new ArrayList<>(new TreeSet<>(pending.keySet()));
+        for (int from = 0; from < ids.size(); from += maxBatchSize) {
+            flushBatch(ids.subList(from, Math.min(from + maxBatchSize, ids.size())));
+        }
+    }
+
+    // Within the current transaction, so a rename of the caller is written after it
+    public void flush(Long manId) {
+        String name;
+        synchronized (this) {
+            // A claiming flush doesn't wait for locks, so the caller's locks can't keep this wait from ending
+            while (flushing.contains(manId)) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted flushing rename of Man id=" + manId, e);
+                }
+            }
+            name = pending.remove(manId);
+        }
+        if (name == null) {
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+            @Override
+            public void afterCompletion(int status) {
+                if (status != STATUS_COMMITTED) {
+                    // Unless the man was renamed again meanwhile
+                    pending.putIfAbsent(manId, name);
+                }
+            }
+        });
+        write(Map.of(manId, name));
+    }
+
+    private void flushBatch(List<Long> ids) {
+        Map<Long, String> batch = new TreeMap<>();
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                // Claimed with a connection in hand, so no claim waits for the pool
+                claim(ids, batch);
+                if (!batch.isEmpty()) {
+                    // A caller's transaction holding a row may wait for the claim in flush(Long)
+                    repository.lockPartnerIdsNoWait(batch.keySet());
+                    write(batch);
+                }
+            });
+            // A newer rename of the same man stays for the next flush
+            batch.forEach(pending::remove);
+        } catch (RuntimeException e) {
+            if (!SqlStates.LOCK_NOT_AVAILABLE.equals(SqlStates.of(e))) {
+                throw e;
+            }
+            log.debug("Skipped batch of {} renames with locked men, retrying later", batch.size());
+        } finally {
+            release(batch.keySet());
+        }
+    }
+
+    private synchronized void claim(List<Long> ids, Map<Long, String> batch) {
+        for (Long id : ids) {
+            String name = pending.get(id);
+            if (name != null && flushing.add(id)) {
+                batch.put(id, name);
+            }
+        }
+    }
+
+    private synchronized void release(Set<Long> ids) {
+        flushing.removeAll(ids);
+        notifyAll();
+    }
+
+    private void write(Map<Long, String> namesByIds) {
+        List<Man> men = repository.updateNames(namesByIds);
+        log.trace("Flushed batch of {} renames: rows={}", namesByIds.size(), men.size());
+        outbox.renamed(men);
+        // Other nodes cache the committed name
+        List<Long> ids = new ArrayList<>(men.size());
+        men.forEach(man -> ids.add(man.getId()));
+        bus.publish(ids);
+    }
+
+    @Override
+    public void destroy() throws InterruptedException {
+        flusher.shutdown();
+        flusher.awaitTermination(1, TimeUnit.MINUTES);
+        flush();
+    }
+
+    private void flushQuietly() {
+        try {
+            flush();
+        } catch (RuntimeException e) {
+            log.warn("Failed to flush {} renames, retrying later", pending.size(), e);
+        }
+    }
+}
@@ -0,0 +1 @@
+ALTER SEQUENCE man_id_seq INCREMENT BY 50;
@@ -0,0 +1,16 @@
+ALTER TABLE man
+    ADD CONSTRAINT man_partner_id_check CHECK (partner_id <> id);
+
+-- Constraints of pairs are checked on commit, so a failed link can still be rolled back
+-- and a pair may be linked by two statements
+
+-- One partner per man, also serves ON DELETE SET NULL of the partner foreign key
+ALTER TABLE man
+    ADD CONSTRAINT man_partner_id_key UNIQUE (partner_id) DEFERRABLE INITIALLY DEFERRED;
+
+-- The partner must be linked back
+ALTER TABLE man
+    ADD CONSTRAINT man_id_partner_id_key UNIQUE (id, partner_id);
+ALTER TABLE man
+    ADD CONSTRAINT man_partner_id_id_fkey FOREIGN KEY (partner_id, id) REFERENCES man (id, partner_id)
+        DEFERRABLE INITIALLY DEFERRED;
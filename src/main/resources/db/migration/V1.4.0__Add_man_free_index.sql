@@ -0,0 +1,2 @@
+-- Free men for matchmaking by FOR UPDATE SKIP LOCKED, a linked man leaves the index
+CREATE INDEX man_free_id_idx ON man (id) WHERE partner_id IS NULL;
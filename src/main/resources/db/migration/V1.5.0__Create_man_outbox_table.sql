@@ -0,0 +1,12 @@
+CREATE TABLE man_outbox
+(
+    id         BIGSERIAL PRIMARY KEY,
+    type       TEXT        NOT NULL,
+    man_id     BIGINT      NOT NULL,
+    name       TEXT,
+    partner_id BIGINT,
+    created_at TIMESTAMPTZ NOT NULL DEFAULT now()
+);
+
+ALTER TABLE man_outbox
+    OWNER TO txdb;
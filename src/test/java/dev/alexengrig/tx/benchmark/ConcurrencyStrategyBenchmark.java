@@ -0,0 +1,111 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.config.ManProperties;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.helper.TestcontainersHelper;
+import dev.alexengrig.tx.service.ConcurrencyStrategy;
+import dev.alexengrig.tx.service.ManService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.Arguments;
+import org.junit.jupiter.params.provider.MethodSource;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Compares throughput of concurrency strategies of {@code update} by contention level:
+ * the fewer hot men, the more threads update the same rows.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = "logging.level.root=warn")
+@Testcontainers
+class ConcurrencyStrategyBenchmark {
+    static final int THREADS = 8;
+    static final int UPDATES_PER_THREAD = 200;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = TestcontainersHelper.createPostgreSQLContainer();
+
+    @Autowired
+    ManService service;
+    @Autowired
+    ManProperties properties;
+
+    @DynamicPropertySource
+    static void postgresDatasourceSetup(DynamicPropertyRegistry registry) {
+        TestcontainersHelper.setupDatasource(registry, postgres);
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    static Stream<Arguments> strategiesByHotMen() {
+        return Stream.of(ConcurrencyStrategy.values())
+                .flatMap(strategy -> Stream.of(1, 8, 64, 1024).map(hotMen -> Arguments.of(strategy, hotMen)));
+    }
+
+    @AfterEach
+    void afterEach() {
+        properties.setConcurrencyStrategy(ConcurrencyStrategy.PESSIMISTIC);
+    }
+
+    @ParameterizedTest(name = "{0} with {1} hot men")
+    @MethodSource("strategiesByHotMen")
+    @SneakyThrows(InterruptedException.class)
+    void update(ConcurrencyStrategy strategy, int hotMen) {
+        properties.setConcurrencyStrategy(strategy);
+        List<Long> ids = service.createAll(IntStream.range(0, hotMen).mapToObj(i -> "Hot #" + i)
+                .collect(Collectors.toList())).stream().map(Man::getId).collect(Collectors.toList());
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(THREADS);
+        for (int t = 0; t < THREADS; t++) {
+            int thread = t;
+            executorService.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < UPDATES_PER_THREAD; i++) {
+                    try {
+                        service.update(ids.get(random.nextInt(ids.size())), "Thread #" + thread + " update #" + i);
+                    } catch (RuntimeException e) {
+                        failures.incrementAndGet();
+                    }
+                }
+            });
+        }
+        long start = System.nanoTime();
+        latch.countDown();
+        executorService.shutdown();
+        if (!executorService.awaitTermination(5, TimeUnit.MINUTES)) {
+            executorService.shutdownNow();
+            fail("Timeout expired");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        int updates = THREADS * UPDATES_PER_THREAD;
+        System.out.printf("%-12s hot men=%-5d updates=%d failures=%d throughput=%.1f ops/s%n",
+                strategy, hotMen, updates, failures.get(), updates * 1e9 / elapsedNanos);
+    }
+}
@@ -0,0 +1,82 @@
+package dev.alexengrig.tx.benchmark;
+
+import dev.alexengrig.tx.helper.TestcontainersHelper;
+import dev.alexengrig.tx.service.GroupCommitExecutor;
+import dev.alexengrig.tx.service.ManService;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Tag;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.ValueSource;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.fail;
+
+/**
+ * Measures throughput of concurrent {@code create} calls with group commit by number of threads,
+ * see {@link NoGroupCommitBenchmark} for a commit per call.
+ */
+@Tag("benchmark")
+@SpringBootTest(properties = {"logging.level.root=warn", "tx.man.group-commit.enabled=true"})
+@Testcontainers
+class GroupCommitBenchmark {
+    static final int CREATES_PER_THREAD = 200;
+
+    @Container
+    static PostgreSQLContainer<?> postgres = TestcontainersHelper.createPostgreSQLContainer();
+
+    @Autowired
+    ManService service;
+    @Autowired
+    ObjectProvider<GroupCommitExecutor> groupCommit;
+
+    @DynamicPropertySource
+    static void postgresDatasourceSetup(DynamicPropertyRegistry registry) {
+        TestcontainersHelper.setupDatasource(registry, postgres);
+        registry.add("spring.jpa.show-sql", () -> "false");
+    }
+
+    @ParameterizedTest(name = "{0} threads")
+    @ValueSource(ints = {1, 8, 32})
+    @SneakyThrows(InterruptedException.class)
+    void create(int threads) {
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(threads);
+        for (int t = 0; t < threads; t++) {
+            int thread = t;
+            executorService.execute(() -> {
+                try {
+                    latch.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+                for (int i = 0; i < CREATES_PER_THREAD; i++) {
+                    service.create("Thread #" + thread + " man #" + i);
+                }
+            });
+        }
+        long start = System.nanoTime();
+        latch.countDown();
+        executorService.shutdown();
+        if (!executorService.awaitTermination(5, TimeUnit.MINUTES)) {
+            executorService.shutdownNow();
+            fail("Timeout expired");
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        int creates = threads * CREATES_PER_THREAD;
+        System.out.printf("group commit=%-5s threads=%-2d creates=%d throughput=%.1f ops/s%n",
+                groupCommit.getIfAvailable() != null, threads, creates, creates * 1e9 / elapsedNanos);
+    }
+}
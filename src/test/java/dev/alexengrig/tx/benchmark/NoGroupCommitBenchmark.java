@@ -0,0 +1,7 @@
+package dev.alexengrig.tx.benchmark;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "tx.man.group-commit.enabled=false")
+class NoGroupCommitBenchmark extends GroupCommitBenchmark {
+}
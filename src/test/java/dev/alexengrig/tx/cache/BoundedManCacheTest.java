@@ -0,0 +1,117 @@
+package dev.alexengrig.tx.cache;
+
+import dev.alexengrig.tx.domain.Man;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BoundedManCacheTest {
+    final AtomicLong nanoTime = new AtomicLong();
+    final BoundedManCache cache = new BoundedManCache(2, Duration.ofSeconds(1), nanoTime::get);
+
+    @Test
+    void should_load_manOnce() {
+        AtomicInteger loads = new AtomicInteger();
+        Man tom = new Man(1L, "Tom", null);
+        assertEquals(tom, cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return tom;
+        }), "Loaded man");
+        assertEquals(tom, cache.get(1L, id -> {
+            loads.incrementAndGet();
+            return tom;
+        }), "Cached man");
+        assertEquals(1, loads.get(), "Number of loads");
+        ManCacheStats stats = cache.stats();
+        assertEquals(1, stats.getHitCount(), "Hits");
+        assertEquals(1, stats.getMissCount(), "Misses");
+        assertEquals(1, stats.getLoadCount(), "Loads");
+    }
+
+    @Test
+    void shouldNot_cache_manLoadedBeforeInvalidation() {
+        Man oldTom = new Man(1L, "Tom", null);
+        Man tom = cache.get(1L, id -> {
+            cache.invalidate(id);
+            return oldTom;
+        });
+        assertEquals(oldTom, tom, "Loaded man");
+        assertFalse(cache.getIfPresent(1L).isPresent(), "Stale man must not be cached");
+    }
+
+    @Test
+    void shouldNot_cache_manLoadedBeforeInvalidationOfAll() {
+        cache.get(2L, id -> new Man(id, "Jerry", null));
+        Man oldTom = new Man(1L, "Tom", null);
+        cache.get(1L, id -> {
+            cache.invalidateAll();
+            return oldTom;
+        });
+        assertFalse(cache.getIfPresent(1L).isPresent(), "Stale man must not be cached");
+        assertFalse(cache.getIfPresent(2L).isPresent(), "Invalidated man");
+    }
+
+    @Test
+    void shouldNot_cache_manLoadedBeforeInvalidation_whenTombstoneEvicted() {
+        Man oldTom = new Man(1L, "Tom", null);
+        cache.get(1L, id -> {
+            cache.invalidate(id);
+            // Tombstones are evicted by other tombstones
+            cache.invalidate(2L);
+            cache.invalidate(3L);
+            return oldTom;
+        });
+        assertFalse(cache.getIfPresent(1L).isPresent(), "Stale man must not be cached");
+    }
+
+    @Test
+    void should_cache_manLoaded_whileTombstonesOfOtherMenEvicted() {
+        Man tom = cache.get(1L, id -> {
+            for (long otherId = 2; otherId < 10; otherId++) {
+                cache.invalidate(otherId);
+            }
+            return new Man(id, "Tom", null);
+        });
+        assertEquals(tom, cache.getIfPresent(1L).orElse(null), "Tom");
+    }
+
+    @Test
+    void should_evict_oldestMan_bySize() {
+        cache.get(1L, id -> new Man(id, "Tom", null));
+        cache.get(2L, id -> new Man(id, "Jerry", null));
+        cache.get(3L, id -> new Man(id, "Spike", null));
+        assertFalse(cache.getIfPresent(1L).isPresent(), "Oldest man");
+        assertTrue(cache.getIfPresent(3L).isPresent(), "Newest man");
+        assertEquals(1, cache.stats().getEvictionCount(), "Evictions");
+        assertEquals(2, cache.stats().getSize(), "Size");
+    }
+
+    @Test
+    void shouldNot_evict_men_byInvalidationsOfOtherMen() {
+        cache.get(1L, id -> new Man(id, "Tom", null));
+        cache.get(2L, id -> new Man(id, "Jerry", null));
+        for (long id = 3; id < 10; id++) {
+            cache.invalidate(id);
+        }
+        assertTrue(cache.getIfPresent(1L).isPresent(), "Tom");
+        assertTrue(cache.getIfPresent(2L).isPresent(), "Jerry");
+        assertEquals(0, cache.stats().getEvictionCount(), "Evictions");
+        assertEquals(2, cache.stats().getSize(), "Size");
+        cache.invalidate(1L);
+        assertEquals(1, cache.stats().getSize(), "Size after invalidation");
+    }
+
+    @Test
+    void should_expire_man_byTimeToLive() {
+        cache.get(1L, id -> new Man(id, "Tom", null));
+        nanoTime.addAndGet(Duration.ofSeconds(1).toNanos());
+        assertFalse(cache.getIfPresent(1L).isPresent(), "Expired man");
+        assertEquals(1, cache.stats().getEvictionCount(), "Evictions");
+    }
+}
@@ -0,0 +1,30 @@
+package dev.alexengrig.tx.outbox;
+
+import dev.alexengrig.tx.domain.ManEvent;
+import dev.alexengrig.tx.domain.ManEventType;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class FileManEventSinkTest {
+    @TempDir
+    Path directory;
+
+    @Test
+    void should_append_events_asLines() throws Exception {
+        Path file = directory.resolve("events.tsv");
+        FileManEventSink sink = new FileManEventSink(file);
+        Instant now = Instant.parse("2021-09-01T12:00:00Z");
+        sink.publish(List.of(new ManEvent(1L, ManEventType.CREATED, 10L, "Tab\tand\nnew line", null, now)));
+        sink.publish(List.of(new ManEvent(2L, ManEventType.LINKED, 10L, null, 11L, now)));
+        assertEquals(List.of(
+                "1\tCREATED\t10\t\t2021-09-01T12:00:00Z\tTab\\tand\\nnew line",
+                "2\tLINKED\t10\t11\t2021-09-01T12:00:00Z\t"), Files.readAllLines(file), "Lines");
+    }
+}
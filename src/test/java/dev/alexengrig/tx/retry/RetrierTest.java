@@ -0,0 +1,63 @@
+package dev.alexengrig.tx.retry;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RetrierTest {
+    static final RuntimeException SERIALIZATION_FAILURE = new CannotAcquireLockException("Could not serialize",
+            new SQLException("could not serialize access", SqlStates.SERIALIZATION_FAILURE));
+
+    @Test
+    void should_retry_serializationFailure() {
+        Retrier retrier = new Retrier(3, Duration.ZERO, Duration.ZERO);
+        AtomicInteger attempts = new AtomicInteger();
+        List<Integer> retriedAttempts = new ArrayList<>();
+        String result = retrier.call(() -> {
+            if (attempts.incrementAndGet() < 3) {
+                throw SERIALIZATION_FAILURE;
+            }
+            return "Done";
+        }, SqlStates::isSerializationFailure, (failure, attempt) -> retriedAttempts.add(attempt));
+        assertEquals("Done", result, "Result");
+        assertEquals(List.of(1, 2), retriedAttempts, "Retried attempts");
+    }
+
+    @Test
+    void shouldNot_retry_overBudget() {
+        Retrier retrier = new Retrier(3, Duration.ZERO, Duration.ZERO, new RetryBudget(0.5, 1));
+        AtomicInteger attempts = new AtomicInteger();
+        RetryableCall<Object, RuntimeException> failingCall = () -> {
+            attempts.incrementAndGet();
+            throw SERIALIZATION_FAILURE;
+        };
+        // The only token of the full budget
+        assertThrows(CannotAcquireLockException.class,
+                () -> retrier.call(failingCall, SqlStates::isSerializationFailure));
+        assertEquals(2, attempts.get(), "Attempts of the first call");
+        attempts.set(0);
+        // Half a token, so no retries
+        assertThrows(CannotAcquireLockException.class,
+                () -> retrier.call(failingCall, SqlStates::isSerializationFailure));
+        assertEquals(1, attempts.get(), "Attempts of the second call");
+    }
+
+    @Test
+    void should_classify_bySqlState() {
+        assertTrue(SqlStates.isSerializationFailure(new RuntimeException(new SQLException("Deadlock", "40P01"))),
+                "Deadlock");
+        assertFalse(SqlStates.isSerializationFailure(new RuntimeException(new SQLException("Unique", "23505"))),
+                "Unique violation");
+        assertFalse(SqlStates.isSerializationFailure(new IllegalStateException()), "No SQL exception");
+    }
+}
@@ -0,0 +1,41 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@TestPropertySource(properties = "tx.man.loader.batching=true")
+class BatchingLoaderSimpleManServiceTest extends SimpleManServiceTest {
+    @Test
+    void should_get_ownUpdate_amongConcurrentLoads() throws InterruptedException {
+        Man man = service.create("Chameleon");
+        AtomicBoolean running = new AtomicBoolean(true);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int t = 0; t < 4; t++) {
+            // Keeps loads of the man in flight
+            executorService.execute(() -> {
+                while (running.get()) {
+                    service.get(man.getId(), ReadConsistency.SNAPSHOT);
+                }
+            });
+        }
+        try {
+            for (int i = 0; i < 100; i++) {
+                service.update(man.getId(), "Chameleon #" + i);
+                assertEquals("Chameleon #" + i, service.get(man.getId(), ReadConsistency.SNAPSHOT).getName(),
+                        "Name after update #" + i);
+            }
+        } finally {
+            running.set(false);
+            executorService.shutdown();
+            executorService.awaitTermination(1, TimeUnit.MINUTES);
+        }
+    }
+}
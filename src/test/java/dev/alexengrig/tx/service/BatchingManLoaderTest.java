@@ -0,0 +1,117 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.repository.ManBulkRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.QueryTimeoutException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+class BatchingManLoaderTest {
+    final List<Collection<Long>> queries = new CopyOnWriteArrayList<>();
+    final ManBulkRepository repository = mock(ManBulkRepository.class);
+    final BatchingManLoader loader = new BatchingManLoader(repository, id -> {
+        throw new AssertionError("Fallback");
+    }, 64, Duration.ofMillis(200), 1, Duration.ofSeconds(1));
+
+    @BeforeEach
+    void beforeEach() {
+        when(repository.findMen(any())).thenAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            queries.add(List.copyOf(ids));
+            return ids.stream().filter(id -> id > 0).map(id -> new Man(id, "Man #" + id, null))
+                    .collect(Collectors.toList());
+        });
+    }
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        loader.destroy();
+    }
+
+    @Test
+    void should_load_concurrentRequests_byOneQuery() throws Exception {
+        ExecutorService executorService = Executors.newFixedThreadPool(32);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Man>> futures = new ArrayList<>();
+        for (int i = 0; i < 32; i++) {
+            long manId = i % 8 + 1;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                return loader.load(manId);
+            }));
+        }
+        start.countDown();
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i % 8 + 1, futures.get(i).get().getId(), "Man id");
+        }
+        executorService.shutdown();
+        assertEquals(1, queries.size(), "Number of queries");
+        assertEquals(8, queries.get(0).size(), "Number of men in query");
+    }
+
+    @Test
+    void shouldNot_join_startedQuery() throws Exception {
+        AtomicReference<String> committedName = new AtomicReference<>("Before");
+        CountDownLatch queried = new CountDownLatch(1);
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            Collection<Long> ids = invocation.getArgument(0);
+            String name = committedName.get();
+            queried.countDown();
+            released.await();
+            return ids.stream().map(id -> new Man(id, name, null)).collect(Collectors.toList());
+        }).when(repository).findMen(any());
+        ExecutorService executorService = Executors.newFixedThreadPool(2);
+        Future<Man> before = executorService.submit(() -> loader.load(1L));
+        queried.await();
+        // Committed after the query has started
+        committedName.set("After");
+        Future<Man> after = executorService.submit(() -> loader.load(1L));
+        Thread.sleep(100);
+        released.countDown();
+        assertEquals("Before", before.get().getName(), "Name of earlier load");
+        assertEquals("After", after.get().getName(), "Name of later load");
+        executorService.shutdown();
+    }
+
+    @Test
+    void should_fail_hungLoad_afterTimeout() {
+        CountDownLatch released = new CountDownLatch(1);
+        doAnswer(invocation -> {
+            released.await();
+            return List.of();
+        }).when(repository).findMen(any());
+        try {
+            assertThrows(QueryTimeoutException.class, () -> loader.load(1L));
+        } finally {
+            released.countDown();
+        }
+    }
+
+    @Test
+    void should_notFound_man() {
+        ManNotFoundException exception = assertThrows(ManNotFoundException.class, () -> loader.load(-1L));
+        assertEquals(-1L, exception.getManId(), "Man id");
+    }
+}
@@ -0,0 +1,47 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestPropertySource(properties = "tx.man.concurrency-strategy=conditional")
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class ConditionalSimpleManServiceTest extends SimpleManServiceTest {
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    TransactionTemplate txTemplate;
+
+    @Test
+    void shouldNot_link_oneWay() {
+        Man tristan = service.create("Tristan");
+        Man isolde = service.create("Isolde");
+        assertThrows(DataIntegrityViolationException.class, () -> updateImmediately(
+                "UPDATE man SET partner_id = ? WHERE id = ?", isolde.getId(), tristan.getId()));
+        assertNull(service.get(tristan.getId(), ReadConsistency.LOCKED).getPartnerId(), "Tristan's partner id");
+    }
+
+    @Test
+    void shouldNot_link_twice() {
+        Man tristan = service.create("Tristan");
+        Man isolde = service.create("Isolde");
+        Man mark = service.create("Mark");
+        assertThrows(DataIntegrityViolationException.class, () -> updateImmediately(
+                "UPDATE man SET partner_id = ? WHERE id IN (?, ?)", isolde.getId(), tristan.getId(), mark.getId()));
+    }
+
+    void updateImmediately(String sql, Object... args) {
+        txTemplate.executeWithoutResult(status -> {
+            // Otherwise constraints of pairs fail the commit
+            jdbcTemplate.execute("SET CONSTRAINTS ALL IMMEDIATE");
+            jdbcTemplate.update(sql, args);
+        });
+    }
+}
@@ -0,0 +1,91 @@
+package dev.alexengrig.tx.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FreeManPoolTest {
+    final FreeManPool pool = new FreeManPool(4);
+
+    @Test
+    void should_take_man_once() {
+        pool.add(1L);
+        pool.add(1L);
+        assertEquals(1, pool.size(), "Size");
+        assertTrue(pool.take(1L), "First take");
+        assertFalse(pool.take(1L), "Second take");
+        assertNull(pool.takeAny(2L), "Any man");
+    }
+
+    @Test
+    void should_takeAny_man_fromOwnStripeFirst() {
+        pool.add(1L);
+        pool.add(6L);
+        assertEquals(6L, pool.takeAny(2L), "Man of own stripe");
+        assertEquals(1L, pool.takeAny(2L), "Man of another stripe");
+        assertNull(pool.takeAny(2L), "Any man");
+    }
+
+    @Test
+    void shouldNot_takeAny_takenMan() {
+        pool.add(1L);
+        pool.add(5L);
+        assertTrue(pool.take(1L), "Take");
+        assertEquals(5L, pool.takeAny(1L), "Any man");
+        pool.add(1L);
+        assertEquals(1L, pool.takeAny(1L), "Returned man");
+        assertEquals(0, pool.size(), "Size");
+    }
+
+    @Test
+    void should_purge_menTakenById() {
+        for (int i = 0; i < 10_000; i++) {
+            pool.add(1L);
+            assertTrue(pool.take(1L), "Take #" + i);
+        }
+        assertTrue(pool.queuedCount() <= 100, "Number of queued entries: " + pool.queuedCount());
+        pool.add(1L);
+        assertEquals(1L, pool.takeAny(1L), "Returned man");
+        assertNull(pool.takeAny(1L), "Any man");
+    }
+
+    @Test
+    void should_takeAny_men_concurrently_once() throws Exception {
+        for (long id = 1; id <= 1000; id++) {
+            pool.add(id);
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<List<Long>>> futures = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            long requesterId = i;
+            futures.add(executorService.submit(() -> {
+                start.await();
+                List<Long> ids = new ArrayList<>();
+                Long id;
+                while ((id = pool.takeAny(requesterId)) != null) {
+                    ids.add(id);
+                }
+                return ids;
+            }));
+        }
+        start.countDown();
+        Set<Long> takenIds = new HashSet<>();
+        for (Future<List<Long>> future : futures) {
+            for (Long id : future.get()) {
+                assertTrue(takenIds.add(id), "Man id=" + id + " is taken twice");
+            }
+        }
+        executorService.shutdown();
+        assertEquals(1000, takenIds.size(), "Number of taken men");
+    }
+}
@@ -0,0 +1,131 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.metrics.StatementCounter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.SavepointManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.TransactionSystemException;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
+
+class GroupCommitExecutorTest {
+    final FailingCommitTransactionManager transactionManager = new FailingCommitTransactionManager();
+    final StatementCounter statementCounter = new StatementCounter();
+    final GroupCommitExecutor executor = new GroupCommitExecutor(transactionManager, mock(JdbcTemplate.class),
+            statementCounter, 64, Duration.ofMillis(1), Duration.ofMillis(20), Duration.ofSeconds(1));
+    final AtomicInteger runs = new AtomicInteger();
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        executor.destroy();
+    }
+
+    @Test
+    void should_run_writeAgain_byRolledBackGroup() {
+        transactionManager.commitFailure = commitFailure("40001");
+        assertEquals(2, executor.execute(runs::incrementAndGet), "Result of second run");
+        assertEquals(1, transactionManager.commits.get(), "Number of commits");
+    }
+
+    @Test
+    void shouldNot_run_writeAgain_byUnknownCommitOutcome() {
+        TransactionSystemException failure = commitFailure("08006");
+        transactionManager.commitFailure = failure;
+        assertSame(failure, assertThrows(TransactionSystemException.class, () -> executor.execute(runs::incrementAndGet)),
+                "Failure of commit");
+        assertEquals(1, runs.get(), "Number of runs");
+    }
+
+    @Test
+    void should_run_blockedWrite_alone() {
+        assertEquals(2, executor.execute(() -> {
+            if (runs.incrementAndGet() == 1) {
+                throw new CannotAcquireLockException("Locked", new SQLException("Lock timeout", "55P03"));
+            }
+            return runs.get();
+        }), "Result of run alone");
+        assertEquals(2, transactionManager.commits.get(), "Number of commits");
+    }
+
+    @Test
+    void should_count_statements_ofCaller() {
+        long statements = statementCounter.get();
+        executor.execute(() -> statementCounter.increment());
+        assertEquals(statements + 1, statementCounter.get(), "Number of statements of caller");
+    }
+
+    @Test
+    void should_keep_committing_afterErrorOfWrite() {
+        assertThrows(AssertionError.class, () -> executor.execute(() -> {
+            throw new AssertionError("Broken write");
+        }), "Error of write");
+        assertEquals(1, executor.execute(runs::incrementAndGet), "Result of next write");
+    }
+
+    @Test
+    void should_fail_hungGroup_afterTimeout() {
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            assertThrows(QueryTimeoutException.class, () -> executor.execute(() -> awaitQuietly(release)),
+                    "Failure of hung group");
+        } finally {
+            release.countDown();
+        }
+    }
+
+    static boolean awaitQuietly(CountDownLatch latch) {
+        try {
+            return latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    static TransactionSystemException commitFailure(String sqlState) {
+        return new TransactionSystemException("Could not commit", new SQLException("Commit failed", sqlState));
+    }
+
+    static class FailingCommitTransactionManager extends AbstractPlatformTransactionManager {
+        final AtomicInteger commits = new AtomicInteger();
+        volatile RuntimeException commitFailure;
+
+        @Override
+        protected Object doGetTransaction() {
+            return mock(SavepointManager.class);
+        }
+
+        @Override
+        protected void doBegin(Object transaction, TransactionDefinition definition) {
+        }
+
+        @Override
+        protected void doCommit(DefaultTransactionStatus status) {
+            RuntimeException failure = commitFailure;
+            if (failure != null) {
+                commitFailure = null;
+                throw failure;
+            }
+            commits.incrementAndGet();
+        }
+
+        @Override
+        protected void doRollback(DefaultTransactionStatus status) {
+        }
+    }
+}
@@ -0,0 +1,118 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.SameManNameException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestPropertySource(properties = {
+        "tx.man.concurrency-strategy=conditional",
+        "tx.man.group-commit.enabled=true",
+        "tx.man.group-commit.window=50ms"})
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class GroupCommitSimpleManServiceTest extends SimpleManServiceTest {
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_allocate_ids_ofGroupedCreates_byBlocks() {
+        Man first = service.create("Tenor");
+        Long lastValue = jdbcTemplate.queryForObject("SELECT last_value FROM man_id_seq", Long.class);
+        List<Man> men = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            men.add(service.create("Tenor #" + i));
+        }
+        Long nextLastValue = jdbcTemplate.queryForObject("SELECT last_value FROM man_id_seq", Long.class);
+        // A block of ids may end among them, then the next one is taken
+        assertTrue(nextLastValue - lastValue <= 50, "Sequence advanced by one block at most");
+        assertTrue(men.get(9).getId() - first.getId() < 60, "Ids of men");
+    }
+
+    @Test
+    void should_commit_concurrentWrites_withOwnOutcomes() throws Exception {
+        Man man = service.create("Chorister");
+        Man conductor = service.create("Conductor");
+        ExecutorService executorService = Executors.newFixedThreadPool(12);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Man>> creates = new ArrayList<>();
+        for (int i = 0; i < 8; i++) {
+            String name = "Chorister #" + i;
+            creates.add(executorService.submit(() -> {
+                start.await();
+                return service.create(name);
+            }));
+        }
+        Future<Man> sameName = executorService.submit(() -> {
+            start.await();
+            return service.update(conductor.getId(), "Conductor");
+        });
+        Future<Man> unknown = executorService.submit(() -> {
+            start.await();
+            return service.update(-1L, "Nobody");
+        });
+        Future<Man> rename = executorService.submit(() -> {
+            start.await();
+            return service.update(man.getId(), "Soloist");
+        });
+        start.countDown();
+        for (int i = 0; i < creates.size(); i++) {
+            Man created = creates.get(i).get();
+            assertEquals("Chorister #" + i, service.get(created.getId(), ReadConsistency.LOCKED).getName(),
+                    "Created man's name");
+        }
+        ExecutionException sameNameException = assertThrows(ExecutionException.class, sameName::get);
+        assertTrue(sameNameException.getCause() instanceof SameManNameException, sameNameException.toString());
+        ExecutionException unknownException = assertThrows(ExecutionException.class, unknown::get);
+        assertTrue(unknownException.getCause() instanceof ManNotFoundException, unknownException.toString());
+        assertEquals("Soloist", rename.get().getName(), "New name");
+        assertEquals("Soloist", service.get(man.getId(), ReadConsistency.LOCKED).getName(), "Committed name");
+        executorService.shutdown();
+    }
+
+    @Test
+    void shouldNot_wait_forLockedRow_inGroup() throws Exception {
+        Man man = service.create("Sleeper");
+        ExecutorService executorService = Executors.newFixedThreadPool(3);
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Future<?> lock = executorService.submit(() -> txTemplate.executeWithoutResult(status -> {
+            jdbcTemplate.queryForObject("SELECT name FROM man WHERE id = ? FOR UPDATE", String.class, man.getId());
+            locked.countDown();
+            await(release);
+        }));
+        await(locked);
+        Future<Man> rename = executorService.submit(() -> service.update(man.getId(), "Awake"));
+        try {
+            // Grouped with the rename or after it, the create isn't held up by the locked row
+            Man bystander = executorService.submit(() -> service.create("Bystander")).get(10, TimeUnit.SECONDS);
+            assertEquals("Bystander", service.get(bystander.getId(), ReadConsistency.LOCKED).getName(),
+                    "Created man's name");
+            assertFalse(rename.isDone(), "Rename of locked man is done");
+        } finally {
+            release.countDown();
+        }
+        lock.get();
+        assertEquals("Awake", rename.get().getName(), "New name");
+        executorService.shutdown();
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    void await(CountDownLatch latch) {
+        assertTrue(latch.await(10, TimeUnit.SECONDS), "Latch is released");
+    }
+}
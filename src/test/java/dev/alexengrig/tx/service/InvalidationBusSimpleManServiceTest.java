@@ -0,0 +1,123 @@
+package dev.alexengrig.tx.service;
+
+import com.zaxxer.hikari.HikariDataSource;
+import dev.alexengrig.tx.cache.BoundedManCache;
+import dev.alexengrig.tx.cache.ManCache;
+import dev.alexengrig.tx.cache.PostgresManInvalidationBus;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.test.context.TestPropertySource;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestPropertySource(properties = "tx.man.cache.invalidation.enabled=true")
+class InvalidationBusSimpleManServiceTest extends SimpleManServiceTest {
+    @Autowired
+    DataSource dataSource;
+    @Autowired
+    DataSourceProperties dataSourceProperties;
+
+    // Cache of another node
+    ManCache remoteCache;
+    PostgresManInvalidationBus remoteBus;
+
+    @BeforeEach
+    void beforeEach() {
+        remoteCache = new BoundedManCache(100, Duration.ofMinutes(1));
+        DataSource listenerDataSource = new DriverManagerDataSource(dataSourceProperties.determineUrl(),
+                dataSourceProperties.determineUsername(), dataSourceProperties.determinePassword());
+        remoteBus = new PostgresManInvalidationBus(dataSource, listenerDataSource, remoteCache,
+                "man_cache_invalidation", 1000, Duration.ofMillis(10), Duration.ofMillis(100));
+        awaitListening();
+    }
+
+    @AfterEach
+    void afterEach() throws InterruptedException {
+        remoteBus.destroy();
+    }
+
+    @Test
+    void should_invalidate_remoteCache_byUpdate() {
+        Man man = service.create("Viola");
+        cacheRemotely(man);
+        service.update(man.getId(), "Cesario");
+        awaitInvalidation(man.getId());
+    }
+
+    @Test
+    void should_invalidate_remoteCache_byLink() throws NotFreeManException {
+        Man orsino = service.create("Orsino");
+        Man viola = service.create("Viola");
+        cacheRemotely(orsino);
+        cacheRemotely(viola);
+        service.link(orsino.getId(), viola.getId());
+        awaitInvalidation(orsino.getId());
+        awaitInvalidation(viola.getId());
+    }
+
+    @Test
+    void shouldNot_invalidate_remoteCache_byRolledBackUpdate() {
+        Man man = service.create("Olivia");
+        Man sebastian = service.create("Sebastian");
+        cacheRemotely(man);
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                service.update(man.getId(), "Countess Olivia");
+                status.setRollbackOnly();
+            });
+        } catch (RuntimeException ignore) {
+            // Rolled back
+        }
+        // Notifications are delivered in commit order, so Sebastian's arrives after a leaked Olivia's
+        cacheRemotely(sebastian);
+        service.update(sebastian.getId(), "Roderigo");
+        awaitInvalidation(sebastian.getId());
+        assertTrue(remoteCache.getIfPresent(man.getId()).isPresent(), "Olivia is invalidated");
+    }
+
+    @Test
+    void shouldNot_hold_pooledConnection_byListening() {
+        // Both buses of this node and the remote one are listening
+        assertEquals(0, ((HikariDataSource) dataSource).getHikariPoolMXBean().getActiveConnections(),
+                "Number of active pooled connections");
+    }
+
+    // The bus invalidates all on connect, so men are cached after its own notification is received
+    @SneakyThrows(InterruptedException.class)
+    void awaitListening() {
+        Long probeId = -1L;
+        long deadline = System.currentTimeMillis() + 10_000;
+        do {
+            remoteCache.get(probeId, id -> new Man(id, "Probe", null));
+            remoteBus.publish(List.of(probeId));
+            Thread.sleep(50);
+        } while (remoteCache.getIfPresent(probeId).isPresent() && System.currentTimeMillis() < deadline);
+        assertFalse(remoteCache.getIfPresent(probeId).isPresent(), "Remote bus is listening");
+    }
+
+    void cacheRemotely(Man man) {
+        remoteCache.get(man.getId(), id -> man);
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    void awaitInvalidation(Long manId) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        while (remoteCache.getIfPresent(manId).isPresent() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(remoteCache.getIfPresent(manId).isPresent(), "Man id=" + manId + " is cached");
+    }
+}
@@ -0,0 +1,69 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.BulkLoadReport;
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.helper.TestcontainersHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.List;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest(properties = "tx.man.bulk-load.chunk-size=100")
+@Testcontainers
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class ManBulkLoaderTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = TestcontainersHelper.createPostgreSQLContainer();
+
+    @Autowired
+    ManBulkLoader loader;
+    @Autowired
+    ManService service;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresDatasourceSetup(DynamicPropertyRegistry registry) {
+        TestcontainersHelper.setupDatasource(registry, postgres);
+    }
+
+    @Test
+    void should_load_men() {
+        BulkLoadReport report = loader.load(IntStream.range(0, 1234).mapToObj(i -> "Loaded #" + i));
+        assertEquals(1234, report.getRows(), "Number of loaded men");
+        assertTrue(report.getRowsPerSecond() > 0, "Rows per second");
+        assertEquals(1234, jdbcTemplate.queryForObject("SELECT count(DISTINCT id) FROM man WHERE name LIKE 'Loaded #%'",
+                Integer.class), "Number of men in table");
+    }
+
+    @Test
+    void should_load_men_withSpecialNames() {
+        List<String> names = List.of("", "\"Quoted\"", "Comma, man", "Line\nbreak", "\\N");
+        assertEquals(names.size(), loader.load(names.stream()).getRows(), "Number of loaded men");
+        for (String name : names) {
+            assertEquals(1, jdbcTemplate.queryForObject("SELECT count(*) FROM man WHERE name = ?",
+                    Integer.class, name), "Number of men named: " + name);
+        }
+    }
+
+    @Test
+    void should_create_men_afterLoad() {
+        loader.load(Stream.of("Bulk man"));
+        Man man = service.create("Created man");
+        List<Man> men = service.createAll(List.of("Created man #1", "Created man #2"));
+        assertEquals(man, service.get(man.getId()), "Created man");
+        assertEquals(2, men.size(), "Number of created men");
+    }
+}
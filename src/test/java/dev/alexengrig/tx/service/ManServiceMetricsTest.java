@@ -0,0 +1,110 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.helper.TestcontainersHelper;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@SpringBootTest
+@Testcontainers
+@TestPropertySource(properties = "tx.man.cache.enabled=true")
+class ManServiceMetricsTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = TestcontainersHelper.createPostgreSQLContainer();
+
+    @Autowired
+    ManService service;
+    @Autowired
+    MeterRegistry registry;
+
+    @DynamicPropertySource
+    static void postgresDatasourceSetup(DynamicPropertyRegistry registry) {
+        TestcontainersHelper.setupDatasource(registry, postgres);
+    }
+
+    @Test
+    void should_record_update() {
+        Man jekyll = service.create("Dr. Jekyll");
+        service.update(jekyll.getId(), "Mr. Hyde");
+        Timer operation = registry.find("man.operation").tags("operation", "update", "outcome", "ok").timer();
+        assertNotNull(operation, "Operation timer");
+        assertEquals(1, operation.count(), "Number of updates");
+        assertTrue(registry.get("man.statements").tags("operation", "update").summary().totalAmount() >= 2,
+                "Number of statements");
+        assertEquals(1, registry.get("man.lock.wait").tags("operation", "update", "outcome", "ok").timer().count(),
+                "Lock waits");
+        assertEquals(1, registry.get("man.commit").tags("operation", "update", "outcome", "ok").timer().count(),
+                "Commits");
+    }
+
+    @Test
+    void should_record_create() {
+        double commits = commitCount("create");
+        service.create("Frankenstein");
+        service.create("Creature");
+        assertEquals(commits + 2, commitCount("create"), "Commits");
+    }
+
+    @Test
+    void should_record_notFreeLink() throws NotFreeManException {
+        Man romeo = service.create("Romeo");
+        Man juliet = service.create("Juliet");
+        Man rosaline = service.create("Rosaline");
+        service.link(romeo.getId(), juliet.getId());
+        assertThrows(NotFreeManException.class, () -> service.link(rosaline.getId(), romeo.getId()));
+        assertEquals(1, registry.get("man.operation").tags("operation", "link", "outcome", "ok").timer().count(),
+                "Linked");
+        assertEquals(1, registry.get("man.operation").tags("operation", "link", "outcome", "not-free").timer()
+                .count(), "Not free");
+        assertEquals(1, registry.get("man.lock.wait").tags("operation", "link", "outcome", "ok").timer().count(),
+                "Lock waits of linked");
+        assertEquals(1, registry.get("man.lock.wait").tags("operation", "link", "outcome", "not-free").timer()
+                .count(), "Lock waits of not free");
+    }
+
+    @Test
+    void should_record_cache() {
+        Man hamlet = service.create("Hamlet");
+        double hits = registry.get("man.cache.gets").tags("result", "hit").functionCounter().count();
+        double misses = registry.get("man.cache.gets").tags("result", "miss").functionCounter().count();
+        service.get(hamlet.getId(), ReadConsistency.CACHED);
+        service.get(hamlet.getId(), ReadConsistency.CACHED);
+        assertEquals(hits + 1, registry.get("man.cache.gets").tags("result", "hit").functionCounter().count(),
+                "Hits");
+        assertEquals(misses + 1, registry.get("man.cache.gets").tags("result", "miss").functionCounter().count(),
+                "Misses");
+        assertTrue(registry.get("man.cache.loads").functionTimer().count() >= 1, "Loads");
+        assertTrue(registry.get("man.cache.size").gauge().value() >= 1, "Size");
+    }
+
+    double commitCount(String operation) {
+        Timer commit = registry.find("man.commit").tags("operation", operation, "outcome", "ok").timer();
+        return commit != null ? commit.count() : 0;
+    }
+
+    @TestConfiguration
+    static class MeterRegistryConfiguration {
+        @Bean
+        MeterRegistry meterRegistry() {
+            return new SimpleMeterRegistry();
+        }
+    }
+}
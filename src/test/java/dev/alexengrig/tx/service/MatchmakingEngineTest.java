@@ -0,0 +1,120 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.ManNotFoundException;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import dev.alexengrig.tx.helper.TestcontainersHelper;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.DynamicPropertyRegistry;
+import org.springframework.test.context.DynamicPropertySource;
+import org.testcontainers.containers.PostgreSQLContainer;
+import org.testcontainers.junit.jupiter.Container;
+import org.testcontainers.junit.jupiter.Testcontainers;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "tx.man.matchmaking.enabled=true")
+@Testcontainers
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class MatchmakingEngineTest {
+    @Container
+    static PostgreSQLContainer<?> postgres = TestcontainersHelper.createPostgreSQLContainer();
+
+    @Autowired
+    MatchmakingEngine engine;
+    @Autowired
+    ManService service;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @DynamicPropertySource
+    static void postgresDatasourceSetup(DynamicPropertyRegistry registry) {
+        TestcontainersHelper.setupDatasource(registry, postgres);
+    }
+
+    @Test
+    void should_match_concurrentRequests() throws Exception {
+        List<Man> men = service.createAll(IntStream.range(0, 64).mapToObj(i -> "Dancer #" + i)
+                .collect(Collectors.toList()));
+        List<Long> requesterIds = new ArrayList<>();
+        for (int i = 0; i < men.size(); i += 2) {
+            requesterIds.add(men.get(i).getId());
+        }
+        List<CompletableFuture<Optional<Long>>> futures = requesterIds.parallelStream()
+                .map(engine::match)
+                .collect(Collectors.toList());
+        Set<Long> linkedIds = new HashSet<>();
+        for (int i = 0; i < futures.size(); i++) {
+            Long requesterId = requesterIds.get(i);
+            Optional<Long> partnerId;
+            try {
+                partnerId = futures.get(i).get(10, TimeUnit.SECONDS);
+            } catch (ExecutionException e) {
+                // Taken as a candidate by another request
+                assertTrue(e.getCause() instanceof NotFreeManException
+                        || e.getCause() instanceof CannotAcquireLockException, e.toString());
+                continue;
+            }
+            if (partnerId.isEmpty()) {
+                // Other men are taken by other requests
+                continue;
+            }
+            assertTrue(linkedIds.add(requesterId), "Man id=" + requesterId + " is linked twice");
+            assertTrue(linkedIds.add(partnerId.get()), "Man id=" + partnerId.get() + " is linked twice");
+            assertEquals(partnerId.get(),
+                    service.get(requesterId, ReadConsistency.LOCKED).getPartnerId(), "Requester's partner id");
+            assertEquals(requesterId,
+                    service.get(partnerId.get(), ReadConsistency.LOCKED).getPartnerId(), "Partner's partner id");
+        }
+    }
+
+    @Test
+    void should_reconcile_manLinkedBehindEngine() {
+        Man romeo = service.create("Romeo");
+        Man juliet = service.create("Juliet");
+        int freeMen = engine.getFreeManCount();
+        jdbcTemplate.update("UPDATE man SET partner_id = CASE id WHEN ? THEN ? ELSE ? END WHERE id IN (?, ?)",
+                romeo.getId(), juliet.getId(), romeo.getId(), romeo.getId(), juliet.getId());
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> engine.match(romeo.getId()).get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof NotFreeManException, exception.toString());
+        assertEquals(juliet.getId(), service.get(romeo.getId(), ReadConsistency.LOCKED).getPartnerId(),
+                "Romeo's partner id");
+        // Romeo is dropped, the candidate is returned unless it is Juliet
+        int freeMenAfter = engine.getFreeManCount();
+        assertTrue(freeMenAfter == freeMen - 1 || freeMenAfter == freeMen - 2, "Number of free men: " + freeMenAfter);
+    }
+
+    @Test
+    void should_match_manMissingInPool() throws Exception {
+        service.create("Tristan");
+        Long isoldeId = jdbcTemplate.queryForObject("INSERT INTO man (name) VALUES ('Isolde') RETURNING id",
+                Long.class);
+        Optional<Long> partnerId = engine.match(isoldeId).get(10, TimeUnit.SECONDS);
+        assertTrue(partnerId.isPresent(), "Isolde's partner");
+        assertEquals(partnerId.get(), service.get(isoldeId, ReadConsistency.LOCKED).getPartnerId(),
+                "Isolde's partner id");
+    }
+
+    @Test
+    void shouldNot_match_unknownMan() {
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> engine.match(-1L).get(10, TimeUnit.SECONDS));
+        assertTrue(exception.getCause() instanceof ManNotFoundException, exception.toString());
+    }
+}
@@ -0,0 +1,7 @@
+package dev.alexengrig.tx.service;
+
+import org.springframework.test.context.TestPropertySource;
+
+@TestPropertySource(properties = "tx.man.concurrency-strategy=optimistic")
+class OptimisticSimpleManServiceTest extends SimpleManServiceTest {
+}
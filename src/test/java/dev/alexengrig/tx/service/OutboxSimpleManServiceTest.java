@@ -0,0 +1,126 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManEvent;
+import dev.alexengrig.tx.domain.ManEventType;
+import dev.alexengrig.tx.exception.NotFreeManException;
+import lombok.SneakyThrows;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.TestConfiguration;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+@TestPropertySource(properties = {
+        "tx.man.outbox.enabled=true",
+        "tx.man.outbox.poll-interval=10ms"})
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class OutboxSimpleManServiceTest extends SimpleManServiceTest {
+    @Autowired
+    EventCollector collector;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @TestConfiguration
+    static class EventCollectorConfiguration {
+        @Bean
+        EventCollector eventCollector() {
+            return new EventCollector();
+        }
+    }
+
+    static class EventCollector {
+        final Queue<ManEvent> events = new ConcurrentLinkedQueue<>();
+
+        @EventListener
+        void on(ManEvent event) {
+            events.add(event);
+        }
+    }
+
+    @Test
+    void should_relay_events_inOrder() throws NotFreeManException {
+        Man romeo = service.create("Romeo");
+        Man juliet = service.create("Juliet");
+        service.update(romeo.getId(), "Romeo Montague");
+        service.link(romeo.getId(), juliet.getId());
+        List<ManEvent> romeoEvents = awaitEvents(romeo.getId(), 3);
+        assertEquals(List.of(ManEventType.CREATED, ManEventType.RENAMED, ManEventType.LINKED),
+                romeoEvents.stream().map(ManEvent::getType).collect(Collectors.toList()), "Types of Romeo's events");
+        assertEquals("Romeo Montague", romeoEvents.get(1).getName(), "New name");
+        assertEquals(juliet.getId(), romeoEvents.get(2).getPartnerId(), "Romeo's partner id");
+        List<ManEvent> julietEvents = awaitEvents(juliet.getId(), 2);
+        assertEquals(romeo.getId(), julietEvents.get(1).getPartnerId(), "Juliet's partner id");
+        assertNull(jdbcTemplate.queryForObject("SELECT max(id) FROM man_outbox WHERE man_id IN (?, ?)",
+                Long.class, romeo.getId(), juliet.getId()), "Outbox events");
+    }
+
+    @Test
+    void shouldNot_relay_rolledBackChange() {
+        Man man = service.create("Hamlet");
+        try {
+            service.update(man.getId(), "Hamlet");
+        } catch (RuntimeException ignore) {
+            // Same name
+        }
+        service.update(man.getId(), "Prince Hamlet");
+        List<ManEvent> events = awaitEvents(man.getId(), 2);
+        assertEquals("Prince Hamlet", events.get(1).getName(), "New name");
+    }
+
+    @Test
+    void should_relay_renames_ofSameMan_inCommitOrder() throws InterruptedException {
+        Man rosencrantz = service.create("Rosencrantz");
+        Man guildenstern = service.create("Guildenstern");
+        awaitEvents(guildenstern.getId(), 1);
+        CountDownLatch renamed = new CountDownLatch(1);
+        CountDownLatch committed = new CountDownLatch(1);
+        Thread thread = new Thread(() -> txTemplate.executeWithoutResult(status -> {
+            // The older transaction, by its first write
+            service.update(rosencrantz.getId(), "Rosencrantz the Courtier");
+            renamed.countDown();
+            await(committed);
+            service.update(guildenstern.getId(), "Guildenstern the Spy");
+        }));
+        thread.start();
+        renamed.await();
+        // The younger transaction renames Guildenstern and commits first
+        service.update(guildenstern.getId(), "Guildenstern the Courtier");
+        committed.countDown();
+        thread.join();
+        List<ManEvent> events = awaitEvents(guildenstern.getId(), 3);
+        assertEquals("Guildenstern the Courtier", events.get(1).getName(), "First rename of Guildenstern");
+        assertEquals("Guildenstern the Spy", events.get(2).getName(), "Second rename of Guildenstern");
+        assertEquals("Guildenstern the Spy", service.get(guildenstern.getId()).getName(), "Guildenstern's name");
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    void await(CountDownLatch latch) {
+        latch.await();
+    }
+
+    @SneakyThrows(InterruptedException.class)
+    List<ManEvent> awaitEvents(Long manId, int count) {
+        long deadline = System.currentTimeMillis() + 10_000;
+        List<ManEvent> events;
+        do {
+            Thread.sleep(20);
+            events = collector.events.stream()
+                    .filter(event -> event.getManId().equals(manId))
+                    .collect(Collectors.toList());
+        } while (events.size() < count && System.currentTimeMillis() < deadline);
+        assertEquals(count, events.size(), "Number of events of Man id=" + manId);
+        return events;
+    }
+}
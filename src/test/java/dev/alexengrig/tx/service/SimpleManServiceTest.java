@@ -1,37 +1,58 @@
 package dev.alexengrig.tx.service;
 
+import dev.alexengrig.tx.domain.LinkResult;
+import dev.alexengrig.tx.domain.LinkStatus;
 import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.domain.ManPage;
+import dev.alexengrig.tx.domain.ManPair;
 import dev.alexengrig.tx.exception.ManNotFoundException;
 import dev.alexengrig.tx.exception.NotFreeManException;
 import dev.alexengrig.tx.exception.SameManNameException;
 import dev.alexengrig.tx.helper.TestcontainersHelper;
 import lombok.SneakyThrows;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.dao.CannotAcquireLockException;
 import org.springframework.test.context.DynamicPropertyRegistry;
 import org.springframework.test.context.DynamicPropertySource;
+import org.springframework.test.context.TestPropertySource;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.testcontainers.containers.PostgreSQLContainer;
 import org.testcontainers.junit.jupiter.Container;
 import org.testcontainers.junit.jupiter.Testcontainers;
 
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 import static org.junit.jupiter.api.Assertions.*;
 
 @SpringBootTest
 @Testcontainers
+@TestPropertySource(properties = "tx.man.cache.enabled=true")
 class SimpleManServiceTest {
     @Container
     static PostgreSQLContainer<?> postgres = TestcontainersHelper.createPostgreSQLContainer();
 
     @Autowired
     ManService service;
+    @Autowired
+    TransactionTemplate txTemplate;
 
     @DynamicPropertySource
     static void postgresDatasourceSetup(DynamicPropertyRegistry registry) {
@@ -52,6 +73,22 @@ class SimpleManServiceTest {
         assertNull(juliet.getPartnerId(), "Man's partner id");
     }
 
+    @Test
+    void should_createAll_menByNames() {
+        List<String> names = IntStream.range(0, 120).mapToObj(i -> "Clone #" + i).collect(Collectors.toList());
+        List<Man> clones = service.createAll(names);
+        assertEquals(names.size(), clones.size(), "Number of men");
+        Set<Long> ids = new HashSet<>();
+        for (int i = 0; i < names.size(); i++) {
+            Man clone = clones.get(i);
+            assertTrue(ids.add(clone.getId()), "Man's id must be unique");
+            assertEquals(names.get(i), clone.getName(), "Man's name");
+            assertNull(clone.getPartnerId(), "Man's partner id");
+        }
+        Man lastClone = clones.get(clones.size() - 1);
+        assertEquals(lastClone, service.get(lastClone.getId()), "Saved man");
+    }
+
     @Test
     void should_get_manById() {
         Man tom = service.create("Tom");
@@ -61,6 +98,43 @@ class SimpleManServiceTest {
         assertNull(tom.getPartnerId(), "Man's partner id");
     }
 
+    @ParameterizedTest
+    @EnumSource(ReadConsistency.class)
+    void should_get_manById_withConsistency(ReadConsistency consistency) {
+        Man jerry = service.create("Jerry");
+        assertEquals(jerry, service.get(jerry.getId(), consistency), "Man");
+    }
+
+    @ParameterizedTest
+    @EnumSource(ReadConsistency.class)
+    void should_notFound_manById_withConsistency(ReadConsistency consistency) {
+        long manId = -1L;
+        ManNotFoundException exception = assertThrows(ManNotFoundException.class,
+                () -> service.get(manId, consistency));
+        assertEquals(manId, exception.getManId(), "Man id");
+    }
+
+    @Test
+    void should_get_cachedMan_afterLink() throws NotFreeManException {
+        Man tristan = service.create("Tristan");
+        Man isolde = service.create("Isolde");
+        assertNull(service.get(tristan.getId(), ReadConsistency.CACHED).getPartnerId(), "Tristan's partner id");
+        assertNull(service.get(isolde.getId(), ReadConsistency.CACHED).getPartnerId(), "Isolde's partner id");
+        service.link(tristan.getId(), isolde.getId());
+        assertEquals(isolde.getId(), service.get(tristan.getId(), ReadConsistency.CACHED).getPartnerId(),
+                "Tristan -> Isolde");
+        assertEquals(tristan.getId(), service.get(isolde.getId(), ReadConsistency.CACHED).getPartnerId(),
+                "Isolde -> Tristan");
+    }
+
+    @Test
+    void should_get_cachedMan_afterUpdate() {
+        Man cassiusClay = service.create("Cassius Clay");
+        assertEquals(cassiusClay, service.get(cassiusClay.getId(), ReadConsistency.CACHED), "Cached man");
+        Man muhammadAli = service.update(cassiusClay.getId(), "Muhammad Ali");
+        assertEquals(muhammadAli, service.get(cassiusClay.getId(), ReadConsistency.CACHED), "Cached man");
+    }
+
     @Test
     void should_notFound_manById() {
         long manId = -1L;
@@ -68,6 +142,27 @@ class SimpleManServiceTest {
         assertEquals(manId, exception.getManId(), "Man id");
     }
 
+    @Test
+    void should_list_men_byPages() {
+        List<Man> men = service.createAll(List.of("Page 1", "Page 2", "Page 3", "Page 4", "Page 5"));
+        List<Long> ids = new ArrayList<>();
+        String pageToken = null;
+        do {
+            ManPage page = service.list(pageToken, 2);
+            assertTrue(page.getMen().size() <= 2, "Page size");
+            page.getMen().forEach(man -> ids.add(man.getId()));
+            pageToken = page.getNextPageToken();
+        } while (pageToken != null);
+        assertEquals(ids.stream().sorted().distinct().collect(Collectors.toList()), ids, "Ids in order");
+        assertTrue(ids.containsAll(men.stream().map(Man::getId).collect(Collectors.toList())), "Created men");
+    }
+
+    @Test
+    void shouldNot_list_men_byInvalidToken() {
+        assertThrows(IllegalArgumentException.class, () -> service.list("not a token", 2));
+        assertThrows(IllegalArgumentException.class, () -> service.list(null, 0));
+    }
+
     @Test
     void should_update_man() {
         Man walterWhite = service.create("Walter White");
@@ -162,6 +257,112 @@ class SimpleManServiceTest {
         assertEquals(juliet.getId(), romeo.getPartnerId(), "Romeo -> Juliet");
     }
 
+    @Test
+    void should_notFound_manToLink() {
+        Man juliet = service.create("Juliet");
+        long manId = -1L;
+        ManNotFoundException exception = assertThrows(ManNotFoundException.class,
+                () -> service.link(juliet.getId(), manId));
+        assertEquals(manId, exception.getManId(), "Man id");
+        assertNull(service.get(juliet.getId()).getPartnerId(), "Juliet's partner id");
+    }
+
+    @Test
+    void shouldNot_link_manWithHimself() {
+        Man narcissus = service.create("Narcissus");
+        assertThrows(IllegalArgumentException.class, () -> service.link(narcissus.getId(), narcissus.getId()));
+        assertThrows(IllegalArgumentException.class, () -> service.tryLink(narcissus.getId(), narcissus.getId()));
+        assertNull(service.get(narcissus.getId(), ReadConsistency.LOCKED).getPartnerId(), "Narcissus's partner id");
+    }
+
+    @Test
+    @SneakyThrows(InterruptedException.class)
+    void should_link_crossPairs_withoutDeadlock() {
+        int pairs = 20;
+        List<Man> men = service.createAll(IntStream.range(0, pairs * 2)
+                .mapToObj(i -> "Dancer #" + i).collect(Collectors.toList()));
+        AtomicInteger linked = new AtomicInteger();
+        AtomicInteger notFree = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(4);
+        for (int i = 0; i < pairs; i++) {
+            Man man = men.get(2 * i);
+            Man anotherMan = men.get(2 * i + 1);
+            for (boolean reversed : new boolean[]{false, true}) {
+                executorService.execute(() -> {
+                    try {
+                        latch.await();
+                        if (reversed) {
+                            service.link(anotherMan.getId(), man.getId());
+                        } else {
+                            service.link(man.getId(), anotherMan.getId());
+                        }
+                        linked.incrementAndGet();
+                    } catch (NotFreeManException e) {
+                        notFree.incrementAndGet();
+                    } catch (InterruptedException ignore) {
+                        Thread.currentThread().interrupt();
+                    }
+                });
+            }
+        }
+        latch.countDown();
+        executorService.shutdown();
+        if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+            executorService.shutdownNow();
+            fail("Timeout expired");
+        }
+        assertEquals(pairs, linked.get(), "Linked pairs");
+        assertEquals(pairs, notFree.get(), "Not free pairs");
+    }
+
+    @Test
+    void should_linkAll_pairs() throws NotFreeManException {
+        List<Man> men = service.createAll(List.of("Ross", "Rachel", "Chandler", "Monica", "Joey", "Janice"));
+        Long ross = men.get(0).getId();
+        Long rachel = men.get(1).getId();
+        Long chandler = men.get(2).getId();
+        Long monica = men.get(3).getId();
+        Long joey = men.get(4).getId();
+        Long janice = men.get(5).getId();
+        service.link(joey, janice);
+        List<ManPair> pairs = List.of(
+                new ManPair(ross, rachel),
+                new ManPair(chandler, monica),
+                new ManPair(monica, ross),
+                new ManPair(joey, chandler),
+                new ManPair(ross, -1L),
+                new ManPair(janice, janice));
+        List<LinkResult> results = service.linkAll(pairs);
+        assertEquals(List.of(
+                new LinkResult(pairs.get(0), LinkStatus.LINKED),
+                new LinkResult(pairs.get(1), LinkStatus.LINKED),
+                new LinkResult(pairs.get(2), LinkStatus.NOT_FREE),
+                new LinkResult(pairs.get(3), LinkStatus.NOT_FREE),
+                new LinkResult(pairs.get(4), LinkStatus.NOT_FOUND),
+                new LinkResult(pairs.get(5), LinkStatus.SAME_MAN)), results, "Results");
+        assertEquals(rachel, service.get(ross).getPartnerId(), "Ross -> Rachel");
+        assertEquals(ross, service.get(rachel).getPartnerId(), "Rachel -> Ross");
+        assertEquals(monica, service.get(chandler).getPartnerId(), "Chandler -> Monica");
+        assertEquals(chandler, service.get(monica).getPartnerId(), "Monica -> Chandler");
+        assertEquals(janice, service.get(joey).getPartnerId(), "Joey -> Janice");
+    }
+
+    @Test
+    void should_linkAll_pairs_withSameMan() {
+        List<Man> men = service.createAll(List.of("Jekyll", "Hyde"));
+        Long jekyll = men.get(0).getId();
+        Long hyde = men.get(1).getId();
+        List<ManPair> pairs = List.of(new ManPair(jekyll, jekyll), new ManPair(jekyll, hyde));
+        List<LinkResult> results = service.linkAll(pairs);
+        assertEquals(List.of(
+                new LinkResult(pairs.get(0), LinkStatus.SAME_MAN),
+                new LinkResult(pairs.get(1), LinkStatus.LINKED)), results, "Results");
+        assertEquals(hyde, service.get(jekyll, ReadConsistency.LOCKED).getPartnerId(), "Jekyll -> Hyde");
+        assertEquals(List.of(new LinkResult(pairs.get(0), LinkStatus.SAME_MAN)),
+                service.linkAll(List.of(pairs.get(0))), "Results of only same man");
+    }
+
     @Test
     @SneakyThrows(InterruptedException.class)
     void should_link_loveTriangle() {
@@ -211,4 +412,89 @@ class SimpleManServiceTest {
             fail("Love triangle");
         }
     }
-}
\ No newline at end of file
+
+    @Test
+    void should_linkWithAnyFree_man() throws NotFreeManException {
+        Man romeo = service.create("Romeo");
+        service.create("Juliet");
+        Man partner = service.linkWithAnyFree(romeo.getId()).orElseThrow();
+        assertEquals(romeo.getId(), partner.getPartnerId(), "Partner -> Romeo");
+        assertEquals(partner.getId(), service.get(romeo.getId()).getPartnerId(), "Romeo -> Partner");
+        assertEquals(romeo.getId(), service.get(partner.getId()).getPartnerId(), "Partner -> Romeo");
+        assertThrows(NotFreeManException.class, () -> service.linkWithAnyFree(romeo.getId()));
+    }
+
+    @Test
+    @SneakyThrows(InterruptedException.class)
+    void should_linkWithAnyFree_concurrently() {
+        List<Man> men = service.createAll(IntStream.range(0, 32)
+                .mapToObj(i -> "Single #" + i).collect(Collectors.toList()));
+        Set<Long> partnerIds = ConcurrentHashMap.newKeySet();
+        AtomicInteger linked = new AtomicInteger();
+        AtomicInteger failures = new AtomicInteger();
+        CountDownLatch latch = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newFixedThreadPool(8);
+        for (Man man : men) {
+            executorService.execute(() -> {
+                try {
+                    latch.await();
+                    Optional<Man> partner = service.linkWithAnyFree(man.getId());
+                    if (partner.isPresent()) {
+                        linked.incrementAndGet();
+                        assertTrue(partnerIds.add(partner.get().getId()), "Partner is taken once");
+                    }
+                } catch (NotFreeManException ignore) {
+                    // Taken as a partner by another matcher
+                } catch (InterruptedException ignore) {
+                    Thread.currentThread().interrupt();
+                } catch (RuntimeException | AssertionError e) {
+                    failures.incrementAndGet();
+                }
+            });
+        }
+        latch.countDown();
+        executorService.shutdown();
+        if (!executorService.awaitTermination(5, TimeUnit.SECONDS)) {
+            executorService.shutdownNow();
+            fail("Timeout expired");
+        }
+        assertEquals(0, failures.get(), "Failures");
+        assertTrue(linked.get() > 0, "Linked men");
+        for (Man man : men) {
+            Long partnerId = service.get(man.getId(), ReadConsistency.SNAPSHOT).getPartnerId();
+            if (partnerId != null) {
+                assertEquals(man.getId(), service.get(partnerId, ReadConsistency.SNAPSHOT).getPartnerId(),
+                        "Partner of partner");
+            }
+        }
+    }
+
+    @Test
+    @SneakyThrows(InterruptedException.class)
+    void shouldNot_tryLink_lockedMan() throws NotFreeManException {
+        Man romeo = service.create("Romeo");
+        Man juliet = service.create("Juliet");
+        CountDownLatch locked = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        executorService.execute(() -> txTemplate.executeWithoutResult(status -> {
+            service.get(juliet.getId(), ReadConsistency.LOCKED);
+            locked.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException ignore) {
+                Thread.currentThread().interrupt();
+            }
+        }));
+        assertTrue(locked.await(2, TimeUnit.SECONDS), "Juliet is locked");
+        try {
+            assertThrows(CannotAcquireLockException.class, () -> service.tryLink(romeo.getId(), juliet.getId()));
+        } finally {
+            release.countDown();
+            executorService.shutdown();
+        }
+        assertTrue(executorService.awaitTermination(2, TimeUnit.SECONDS), "Juliet is released");
+        service.tryLink(romeo.getId(), juliet.getId());
+        assertEquals(juliet.getId(), service.get(romeo.getId()).getPartnerId(), "Romeo -> Juliet");
+    }
+}
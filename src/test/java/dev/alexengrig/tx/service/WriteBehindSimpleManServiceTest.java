@@ -0,0 +1,126 @@
+package dev.alexengrig.tx.service;
+
+import dev.alexengrig.tx.domain.Man;
+import dev.alexengrig.tx.exception.SameManNameException;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.TestPropertySource;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestPropertySource(properties = {
+        "tx.man.write-behind.enabled=true",
+        "tx.man.write-behind.max-pending=4",
+        // Flushed by tests
+        "tx.man.write-behind.flush-interval=1h"})
+@SuppressWarnings({"SqlResolve", "SqlNoDataSourceInspection"})
+class WriteBehindSimpleManServiceTest extends SimpleManServiceTest {
+    @Autowired
+    WriteBehindRenamer renamer;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Test
+    void should_update_coalescedRenames() {
+        Man man = service.create("Prince");
+        renamer.flush();
+        for (int i = 1; i <= 10; i++) {
+            service.update(man.getId(), "Prince #" + i);
+        }
+        assertEquals("Prince", committedName(man.getId()), "Committed name before flush");
+        assertEquals("Prince #10", service.get(man.getId()).getName(), "Name before flush");
+        assertEquals("Prince #10", service.get(man.getId(), ReadConsistency.LOCKED).getName(), "Locked name");
+        renamer.flush();
+        assertEquals(0, renamer.getPendingCount(), "Number of pending renames");
+        assertEquals("Prince #10", committedName(man.getId()), "Committed name after flush");
+    }
+
+    @Test
+    void shouldNot_update_pendingName() {
+        Man man = service.create("Artist");
+        service.update(man.getId(), "Symbol");
+        assertThrows(SameManNameException.class, () -> service.update(man.getId(), "Symbol"));
+        // Back to the committed name before flush writes nothing
+        service.update(man.getId(), "Artist");
+        renamer.flush();
+        assertEquals("Artist", committedName(man.getId()), "Committed name");
+    }
+
+    @Test
+    void should_flush_fullBuffer() {
+        renamer.flush();
+        for (int i = 0; i < 5; i++) {
+            Man man = service.create("Man #" + i);
+            service.update(man.getId(), "Renamed #" + i);
+        }
+        assertEquals(1, renamer.getPendingCount(), "Number of pending renames");
+    }
+
+    @Test
+    void should_keep_pendingRenames_byRolledBackTransaction() {
+        Man hamlet = service.create("Hamlet");
+        Man horatio = service.create("Horatio");
+        renamer.flush();
+        service.update(hamlet.getId(), "Prince Hamlet");
+        service.update(horatio.getId(), "Friend Horatio");
+        txTemplate.executeWithoutResult(status -> {
+            service.update(hamlet.getId(), "Mad Hamlet");
+            assertEquals("Horatio", committedName(horatio.getId()), "Horatio's committed name within transaction");
+            status.setRollbackOnly();
+        });
+        assertEquals(2, renamer.getPendingCount(), "Number of pending renames");
+        assertEquals("Prince Hamlet", service.get(hamlet.getId()).getName(), "Hamlet's name");
+        renamer.flush();
+        assertEquals("Prince Hamlet", committedName(hamlet.getId()), "Hamlet's committed name");
+        assertEquals("Friend Horatio", committedName(horatio.getId()), "Horatio's committed name");
+    }
+
+    @Test
+    void should_update_afterPendingRename_withinTransaction() {
+        Man man = service.create("Ophelia");
+        renamer.flush();
+        service.update(man.getId(), "Fair Ophelia");
+        txTemplate.executeWithoutResult(status -> service.update(man.getId(), "Drowned Ophelia"));
+        assertEquals(0, renamer.getPendingCount(), "Number of pending renames");
+        renamer.flush();
+        assertEquals("Drowned Ophelia", committedName(man.getId()), "Committed name");
+    }
+
+    @Test
+    void should_flush_renames_whileCallerTransactionHoldsMan() {
+        Man hamlet = service.create("Hamlet");
+        Man horatio = service.create("Horatio");
+        renamer.flush();
+        service.update(hamlet.getId(), "Prince Hamlet");
+        service.update(horatio.getId(), "Friend Horatio");
+        ExecutorService executorService = Executors.newSingleThreadExecutor();
+        try {
+            txTemplate.executeWithoutResult(status -> {
+                jdbcTemplate.queryForObject("SELECT name FROM man WHERE id = ? FOR UPDATE", String.class,
+                        horatio.getId());
+                // The flush must not wait for Horatio while it keeps Hamlet's rename from the caller
+                assertDoesNotThrow(() -> executorService.submit(renamer::flush).get(5, TimeUnit.SECONDS),
+                        "Flush with Horatio locked");
+                assertEquals(2, renamer.getPendingCount(), "Number of pending renames with Horatio locked");
+                service.update(hamlet.getId(), "Mad Hamlet");
+            });
+        } finally {
+            executorService.shutdown();
+        }
+        assertEquals("Mad Hamlet", committedName(hamlet.getId()), "Hamlet's committed name");
+        renamer.flush();
+        assertEquals(0, renamer.getPendingCount(), "Number of pending renames");
+        assertEquals("Friend Horatio", committedName(horatio.getId()), "Horatio's committed name");
+    }
+
+    String committedName(Long manId) {
+        return jdbcTemplate.queryForObject("SELECT name FROM man WHERE id = ?", String.class, manId);
+    }
+}